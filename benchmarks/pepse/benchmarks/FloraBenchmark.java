@@ -0,0 +1,78 @@
+package pepse.benchmarks;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.gui.MessageHandler;
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.Constants;
+import pepse.world.Terrain;
+import pepse.world.trees.Flora;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating the trees, leaves and fruits of a range with
+ * Flora.createInRange, for several tree densities. The game object collection is created
+ * without a window, so the benchmark runs headless.
+ *
+ * @author Noam Barzilay
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloraBenchmark {
+    // Dimensions of the window the world is generated for
+    private static final Vector2 WINDOW_DIMENSIONS = new Vector2(1280, 720);
+    // Seed of the generated world
+    private static final int SEED = 1234;
+
+    /** Probability of creating a tree in a block. */
+    @Param({"0.05", "0.1", "0.3"})
+    public float treeCreateProbability;
+
+    private Terrain terrain;
+    private Flora flora;
+
+    /**
+     * Creates the terrain the trees stand on and warms its heightmap cache for the range.
+     */
+    @Setup(Level.Trial)
+    public void createTerrain() {
+        terrain = new Terrain(WINDOW_DIMENSIONS, SEED);
+        terrain.createInRange(0, Constants.CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a fresh flora with an empty game object collection.
+     */
+    @Setup(Level.Invocation)
+    public void createFlora() {
+        GameObjectCollection gameObjects = new GameObjectCollection(new MessageHandler(null));
+        flora = new Flora(gameObjects, terrain, energy -> { }, SEED, treeCreateProbability);
+    }
+
+    /**
+     * Creates the flora of a single chunk.
+     *
+     * @return The created flora GameObjects.
+     */
+    @Benchmark
+    public List<?> createInRange() {
+        return flora.createInRange(0, Constants.CHUNK_SIZE);
+    }
+}
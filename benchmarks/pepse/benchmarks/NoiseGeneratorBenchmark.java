@@ -0,0 +1,90 @@
+package pepse.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pepse.Constants;
+import pepse.util.NoiseGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of NoiseGenerator.noise, both for a single sample and for a span of
+ * consecutive block columns, as the terrain samples it when creating a chunk, sampled one
+ * column at a time or with the batched noise.
+ *
+ * @author Noam Barzilay
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoiseGeneratorBenchmark {
+    // Noise factor used by the terrain
+    private static final double FACTOR = Constants.BLOCK_SIZE * 7;
+
+    /** Number of block columns sampled by the span benchmark. */
+    @Param({"20", "64"})
+    public int spanColumns;
+
+    private NoiseGenerator noiseGenerator;
+    private double x;
+    private double[] span;
+
+    /**
+     * Creates the noise generator with the ground height of a 720px high window.
+     */
+    @Setup
+    public void setup() {
+        noiseGenerator = new NoiseGenerator(1234, (int) (720 * Constants.INITIAL_GROUND_HEIGHT_FACTOR));
+        span = new double[spanColumns];
+    }
+
+    /**
+     * Samples the noise at a single, ever advancing, x-coordinate.
+     *
+     * @return The sampled noise.
+     */
+    @Benchmark
+    public double noisePerCall() {
+        x += Constants.BLOCK_SIZE;
+        return noiseGenerator.noise(x, FACTOR);
+    }
+
+    /**
+     * Samples the noise at every block column of a span.
+     *
+     * @return The sum of the sampled noise.
+     */
+    @Benchmark
+    public double noisePerSpan() {
+        double sum = 0;
+        for (int i = 0; i < spanColumns; i++) {
+            x += Constants.BLOCK_SIZE;
+            sum += noiseGenerator.noise(x, FACTOR);
+        }
+        return sum;
+    }
+
+    /**
+     * Samples the noise at every block column of a span with a single batched call.
+     *
+     * @return The sampled noise.
+     */
+    @Benchmark
+    public double[] noisePerSpanBatched() {
+        x += spanColumns * Constants.BLOCK_SIZE;
+        noiseGenerator.noise(x, Constants.BLOCK_SIZE, FACTOR, span);
+        return span;
+    }
+}
@@ -0,0 +1,77 @@
+package pepse.benchmarks;
+
+import danogl.util.Vector2;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import pepse.world.Terrain;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating the terrain of a whole window with Terrain.createInRange,
+ * for several window sizes and collision modes. Each invocation uses a fresh terrain, so the
+ * heightmap cache starts cold as it does for a newly explored range.
+ *
+ * @author Noam Barzilay
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainBenchmark {
+    /** Window size, as WIDTHxHEIGHT. */
+    @Param({"800x600", "1280x720", "1920x1080"})
+    public String windowSize;
+
+    /** The way the ground is split into colliders. */
+    @Param({"PER_CELL", "MERGED_COLUMNS", "BAKED_TEXTURE"})
+    public Terrain.CollisionMode collisionMode;
+
+    private Vector2 windowDimensions;
+    private Terrain terrain;
+    private int seed;
+
+    /**
+     * Parses the window size.
+     */
+    @Setup(Level.Trial)
+    public void parseWindowSize() {
+        String[] size = windowSize.split("x");
+        windowDimensions = new Vector2(Integer.parseInt(size[0]), Integer.parseInt(size[1]));
+    }
+
+    /**
+     * Creates a fresh terrain with a new seed.
+     */
+    @Setup(Level.Invocation)
+    public void createTerrain() {
+        terrain = new Terrain(windowDimensions, seed++, collisionMode);
+    }
+
+    /**
+     * Creates the ground blocks, and the baked texture if the mode uses one, of a whole window.
+     *
+     * @param blackhole Consumes the created objects.
+     */
+    @Benchmark
+    public void createInRange(Blackhole blackhole) {
+        int width = (int) windowDimensions.x();
+        blackhole.consume(terrain.createInRange(0, width));
+        if (collisionMode == Terrain.CollisionMode.BAKED_TEXTURE) {
+            blackhole.consume(terrain.createTextureInRange(0, width));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package pepse;
+
+import danogl.GameObject;
+
+/**
+ * This class maps pairs of collision categories to the CollisionStrategy handling collisions
+ * between objects of these categories.
+ * A collision is dispatched by the categories of the two objects, looked up in a flat array
+ * indexed by their bit positions, so handling it never compares tags or checks object types.
+ * Pairs with no registered strategy are ignored.
+ *
+ * @author Noam Barzilay
+ */
+public class CollisionTable {
+    // Strategies by the bit index of the object's category times the number of categories, plus
+    // the bit index of the other object's category
+    private final CollisionStrategy[] strategies =
+            new CollisionStrategy[Constants.COLLISION_CATEGORY_COUNT *
+                    Constants.COLLISION_CATEGORY_COUNT];
+
+    /**
+     * Registers the strategy handling collisions of objects of a category with objects of
+     * another category. The strategy is invoked on the object of the first category.
+     *
+     * @param category      The category of the object the strategy is invoked on.
+     * @param otherCategory The category of the object it collided with.
+     * @param strategy      The strategy handling the collision.
+     * @return This table, so registrations can be chained.
+     */
+    public CollisionTable register(int category, int otherCategory, CollisionStrategy strategy) {
+        strategies[indexOf(category, otherCategory)] = strategy;
+        return this;
+    }
+
+    /**
+     * Handles a collision between two objects by the strategy registered for their categories,
+     * if any.
+     *
+     * @param thisObj       The object on which the collision occurred.
+     * @param category      The category of thisObj.
+     * @param otherObj      The object with which the collision occurred.
+     * @param otherCategory The category of otherObj.
+     */
+    public void dispatch(GameObject thisObj, int category, GameObject otherObj, int otherCategory) {
+        CollisionStrategy strategy = strategies[indexOf(category, otherCategory)];
+        if (strategy != null) {
+            strategy.onCollision(thisObj, otherObj);
+        }
+    }
+
+    private static int indexOf(int category, int otherCategory) {
+        return Integer.numberOfTrailingZeros(category) * Constants.COLLISION_CATEGORY_COUNT +
+                Integer.numberOfTrailingZeros(otherCategory);
+    }
+}
@@ -1,6 +1,7 @@
 
 package pepse;
 
+import danogl.collisions.Layer;
 import danogl.util.Vector2;
 
 import java.awt.*;
@@ -48,15 +49,15 @@ public class Constants {
     /** Gravity affecting the avatar. */
     public static final float GRAVITY = 400;
     /** Maximum energy level of the avatar. */
-    public static float MAX_ENERGY = 100;
+    public static final float MAX_ENERGY = 100;
     /** Minimum energy level of the avatar. */
-    public static float MIN_ENERGY = 0;
+    public static final float MIN_ENERGY = 0;
     /** Energy gained when idle. */
-    public static float ENERGY_GAIN = 1;
+    public static final float ENERGY_GAIN = 1;
     /** Energy lost when running. */
-    public static float ENERGY_RUN_LOSS = 0.5f;
+    public static final float ENERGY_RUN_LOSS = 0.5f;
     /** Energy lost when jumping. */
-    public static float ENERGY_JUMP_LOSS = 10;
+    public static final float ENERGY_JUMP_LOSS = 10;
     /** Time between images for avatar animations. */
     public static final double TIME_BETWEEN_IMAGES = 0.2;
     /** File paths for idle animation images. */
@@ -87,6 +88,89 @@ public class Constants {
     public static final float INITIAL_GROUND_HEIGHT_FACTOR = (float) 2 / 3;
     /** Base color of the ground. */
     public static final Color BASE_GROUND_COLOR = new Color(212, 123, 74);
+    /** Memory cap of the cached ground heights, in bytes. */
+    public static final long HEIGHTMAP_CACHE_MAX_BYTES = 1 << 20;
+    /** Extra depth of ground below the window bottom, so a moving camera never sees its end. */
+    public static final int TERRAIN_EXTRA_DEPTH = BLOCK_SIZE * 10;
+
+    // Chunks
+    /** Width of each world chunk, a multiple of the block size. */
+    public static final int CHUNK_SIZE = BLOCK_SIZE * 20;
+    /** Number of chunks beyond each edge of the screen that are kept loaded. */
+    public static final int CHUNK_LOAD_DISTANCE = 1;
+    /** Number of chunks beyond each edge of the screen after which a chunk is unloaded. */
+    public static final int CHUNK_UNLOAD_DISTANCE = 2;
+    /** Maximal number of generated objects added to the game per frame, for chunks off screen. */
+    public static final int SPAWN_OBJECTS_PER_FRAME = 100;
+    /** Maximal time spent adding generated objects to the game per frame, in microseconds. */
+    public static final long SPAWN_MICROS_PER_FRAME = 2000;
+    /** Distance beyond each edge of the screen within which chunk objects are active. */
+    public static final float CULL_MARGIN = BLOCK_SIZE * 3;
+    /** Extra distance beyond the cull margin a chunk must leave before its objects are parked. */
+    public static final float CULL_HYSTERESIS = BLOCK_SIZE * 3;
+
+    // Pools
+    /** Maximal number of idle trees, leaves and fruits kept for reuse, per kind. */
+    public static final int FLORA_POOL_CAPACITY = 2048;
+
+    // Palettes
+    /** Number of precomputed variants of each base color of the world. */
+    public static final int COLOR_PALETTE_SIZE = 16;
+
+    // Profiling
+    /** Number of most recent frames kept in the profiler's trace. */
+    public static final int PROFILER_TRACE_FRAMES = 3600;
+    /** Time between refreshes of the profiler overlay, in seconds. */
+    public static final float PROFILER_REFRESH_TIME = 0.5f;
+    /** Dimensions of each line of the profiler overlay. */
+    public static final Vector2 PROFILER_LINE_DIMENSIONS = new Vector2(400, 20);
+
+    // Saving
+    /** Directory the world is saved in, relative to the working directory. */
+    public static final String SAVE_DIRECTORY = "save";
+    /** Number of consecutive chunks stored in each region file of a save. */
+    public static final int SAVE_REGION_CHUNKS = 32;
+
+    // Layers
+    /** Layer of the ground blocks. */
+    public static final int GROUND_LAYER = Layer.STATIC_OBJECTS;
+    /** Layer of the baked ground textures, drawn just below the ground and never colliding. */
+    public static final int GROUND_TEXTURE_LAYER = Layer.STATIC_OBJECTS - 1;
+    /** Layer of the tree trunks. */
+    public static final int TREE_LAYER = Layer.STATIC_OBJECTS;
+    /** Layer of the leaves. */
+    public static final int LEAF_LAYER = Layer.BACKGROUND;
+    /**
+     * Layer of the fruits, drawn just below the avatar. It is not a colliding layer: the avatar
+     * finds the fruits it touches through the spatial grid.
+     */
+    public static final int FRUIT_LAYER = Layer.DEFAULT - 1;
+
+    // Collision categories
+    /** Collision category of the ground blocks. */
+    public static final int GROUND_CATEGORY = 1;
+    /** Collision category of the tree trunks. */
+    public static final int TREE_CATEGORY = 1 << 1;
+    /** Collision category of the leaves. */
+    public static final int LEAF_CATEGORY = 1 << 2;
+    /** Collision category of the fruits. */
+    public static final int FRUIT_CATEGORY = 1 << 3;
+    /** Collision category of the avatar. */
+    public static final int AVATAR_CATEGORY = 1 << 4;
+    /** Number of collision categories. */
+    public static final int COLLISION_CATEGORY_COUNT = 5;
+    /** Categories the ground blocks collide with. */
+    public static final int GROUND_COLLISION_MASK = AVATAR_CATEGORY;
+    /** Categories the tree trunks collide with. */
+    public static final int TREE_COLLISION_MASK = AVATAR_CATEGORY;
+    /** Categories the leaves collide with, none. */
+    public static final int LEAF_COLLISION_MASK = 0;
+    /** Categories the fruits collide with. */
+    public static final int FRUIT_COLLISION_MASK = AVATAR_CATEGORY;
+    /** Categories the avatar collides with. */
+    public static final int AVATAR_COLLISION_MASK = GROUND_CATEGORY | TREE_CATEGORY | FRUIT_CATEGORY;
+    /** Categories of the objects indexed in the spatial grid, which the avatar finds by contact. */
+    public static final int SPATIAL_GRID_CATEGORIES = FRUIT_CATEGORY;
 
     // Tree
     /** Base trunk color of trees. */
@@ -139,6 +223,17 @@ public class Constants {
     public static final Color[] FRUIT_COLORS = {Color.RED, Color.YELLOW, Color.ORANGE};
     /** Probability of creating a fruit in a block. */
     public static final float FRUIT_CREATE_PROBABILITY = 0.05f;
+    /** Number of slots of the fruit respawn wheel. */
+    public static final int RESPAWN_WHEEL_SLOTS = 64;
+    /** Duration of a tick of the fruit respawn wheel, in seconds. */
+    public static final float RESPAWN_WHEEL_TICK = 0.25f;
+    /** Layer of the fruit respawn wheel, which collides with nothing. */
+    public static final int RESPAWN_WHEEL_LAYER = Layer.BACKGROUND;
+    /** Maximal number of fruits in a chunk, one per leaf cell of a tree in each of its columns. */
+    public static final int MAX_FRUITS_PER_CHUNK = (CHUNK_SIZE / BLOCK_SIZE) *
+            (LEAVES_SQUARE_SIZE / (int) LEAF_SIZE) * (LEAVES_SQUARE_SIZE / (int) LEAF_SIZE);
+    /** Number of longs in the saved bitset of the eaten fruits of a chunk. */
+    public static final int SAVE_FRUIT_WORDS = (MAX_FRUITS_PER_CHUNK + Long.SIZE - 1) / Long.SIZE;
 
     // PepseGameManager
     /** Start value for the range. */
@@ -0,0 +1,140 @@
+package pepse;
+
+import java.util.Arrays;
+
+/**
+ * This class delivers typed game events from the objects that publish them to any number of
+ * subscribers per type.
+ * Events are not delivered when they are published, but queued and dispatched together once per
+ * frame, at the end of the frame, so reactions never run in the middle of the publisher's update.
+ * Events of a coalescing type are queued once per frame, the later publications only replacing
+ * the value, so an expensive reaction runs once however many times it was triggered.
+ * The queue is made of primitive arrays reused from frame to frame, so publishing and dispatching
+ * allocate nothing once the arrays have grown to the busiest frame.
+ * The bus is not thread-safe, and is meant to be used from the game loop thread only.
+ *
+ * @author Noam Barzilay
+ */
+public class EventBus {
+    // Initial capacity of the event queue
+    private static final int INITIAL_CAPACITY = 16;
+    // Marks a type that has no queued event
+    private static final int NOT_QUEUED = -1;
+    // All event types, by ordinal
+    private static final EventType[] TYPES = EventType.values();
+
+    // Subscribers of each type, by the type's ordinal
+    private final EventSubscriber[][] subscribers = new EventSubscriber[TYPES.length][0];
+    // Events queued in the current frame, by publication order
+    private EventType[] queuedTypes = new EventType[INITIAL_CAPACITY];
+    private double[] queuedValues = new double[INITIAL_CAPACITY];
+    private int queuedCount;
+    // Events being dispatched, swapped with the queued ones, so subscribers may publish
+    private EventType[] dispatchedTypes = new EventType[INITIAL_CAPACITY];
+    private double[] dispatchedValues = new double[INITIAL_CAPACITY];
+    // Position in the queue of the queued event of each coalescing type, by ordinal
+    private final int[] queuedIndices = new int[TYPES.length];
+
+    /**
+     * Constructs an EventBus object with no subscribers.
+     */
+    public EventBus() {
+        Arrays.fill(queuedIndices, NOT_QUEUED);
+    }
+
+    /**
+     * Subscribes to the events of a type.
+     *
+     * @param type       The type of events to receive.
+     * @param subscriber The subscriber, called for every dispatched event of the type.
+     */
+    public void subscribe(EventType type, EventSubscriber subscriber) {
+        EventSubscriber[] current = subscribers[type.ordinal()];
+        EventSubscriber[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscriber;
+        subscribers[type.ordinal()] = updated;
+    }
+
+    /**
+     * Unsubscribes from the events of a type. Does nothing if the subscriber is not subscribed.
+     *
+     * @param type       The type of events the subscriber receives.
+     * @param subscriber The subscriber.
+     */
+    public void unsubscribe(EventType type, EventSubscriber subscriber) {
+        EventSubscriber[] current = subscribers[type.ordinal()];
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == subscriber) {
+                EventSubscriber[] updated = Arrays.copyOf(current, current.length - 1);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                subscribers[type.ordinal()] = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Queues an event, to be delivered by the next dispatch. If the type coalesces and an event
+     * of it is already queued, only its value is replaced.
+     *
+     * @param type  The type of the event.
+     * @param value The value of the event.
+     */
+    public void publish(EventType type, double value) {
+        if (subscribers[type.ordinal()].length == 0) {
+            return;
+        }
+        if (type.isCoalescing()) {
+            int queuedIndex = queuedIndices[type.ordinal()];
+            if (queuedIndex != NOT_QUEUED) {
+                queuedValues[queuedIndex] = value;
+                return;
+            }
+            queuedIndices[type.ordinal()] = queuedCount;
+        }
+        if (queuedCount == queuedTypes.length) {
+            queuedTypes = Arrays.copyOf(queuedTypes, queuedCount * 2);
+            queuedValues = Arrays.copyOf(queuedValues, queuedCount * 2);
+        }
+        queuedTypes[queuedCount] = type;
+        queuedValues[queuedCount] = value;
+        queuedCount++;
+    }
+
+    /**
+     * Delivers the queued events to their subscribers, in publication order. Events published by
+     * the subscribers are queued for the next dispatch.
+     */
+    public void dispatch() {
+        int count = queuedCount;
+        if (count == 0) {
+            return;
+        }
+        // Swap the queues, so the subscribers publish into an empty one
+        EventType[] types = queuedTypes;
+        double[] values = queuedValues;
+        queuedTypes = dispatchedTypes;
+        queuedValues = dispatchedValues;
+        dispatchedTypes = types;
+        dispatchedValues = values;
+        queuedCount = 0;
+        Arrays.fill(queuedIndices, NOT_QUEUED);
+
+        for (int i = 0; i < count; i++) {
+            EventType type = types[i];
+            types[i] = null;
+            for (EventSubscriber subscriber : subscribers[type.ordinal()]) {
+                subscriber.onEvent(type, values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of events waiting for the next dispatch.
+     *
+     * @return The number of queued events.
+     */
+    public int queuedCount() {
+        return queuedCount;
+    }
+}
@@ -0,0 +1,19 @@
+package pepse;
+
+/**
+ * The EventSubscriber interface represents objects that react to events published on the
+ * EventBus. Events are delivered as their type and a primitive value, so delivering them never
+ * allocates.
+ *
+ * @author Noam Barzilay
+ */
+@FunctionalInterface
+public interface EventSubscriber {
+    /**
+     * Called when an event the subscriber subscribed to is dispatched.
+     *
+     * @param type  The type of the event.
+     * @param value The value of the event, whose meaning depends on its type.
+     */
+    void onEvent(EventType type, double value);
+}
@@ -0,0 +1,37 @@
+package pepse;
+
+/**
+ * The types of events published on the EventBus, each with the meaning of its value.
+ * Events of a coalescing type are delivered at most once per frame, with the value of the last
+ * publication, as their subscribers only care about the latest state.
+ *
+ * @author Noam Barzilay
+ */
+public enum EventType {
+    /** The avatar jumped, the value is its energy percentage after the jump. */
+    JUMP(true),
+    /** The avatar landed, the value is the x-coordinate of its center. */
+    LAND(true),
+    /** The avatar's energy percentage changed, the value is the new percentage. */
+    ENERGY_CHANGED(true),
+    /** The avatar ate a fruit, the value is the energy the fruit gave. */
+    FRUIT_EATEN(false),
+    /** A chunk was generated and handed to the world, the value is its index. */
+    CHUNK_LOADED(false);
+
+    // Whether several publications within a frame are delivered as one
+    private final boolean coalescing;
+
+    EventType(boolean coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    /**
+     * Returns whether several publications of this type within a frame are delivered as one.
+     *
+     * @return Whether the type coalesces.
+     */
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+}
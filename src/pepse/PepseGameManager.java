@@ -7,25 +7,82 @@ import danogl.gui.ImageReader;
 import danogl.gui.SoundReader;
 import danogl.gui.UserInputListener;
 import danogl.gui.WindowController;
+import danogl.gui.rendering.Camera;
 import danogl.util.Vector2;
+import pepse.profiling.ProfiledGameObjectCollection;
+import pepse.profiling.Profiler;
+import pepse.profiling.ProfilerOverlay;
+import pepse.save.WorldSave;
 import pepse.world.*;
 import pepse.world.daynight.Night;
 import pepse.world.daynight.Sun;
 import pepse.world.daynight.SunHalo;
 import pepse.world.trees.Flora;
 
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Random;
 
 /**
  * The PepseGameManager class represents the main game manager for the Pepse game.
  * It extends the GameManager class and initializes various game components and entities.
+ * A world started from a save continues where it was saved, and F5 saves it again.
  * @author Noam Barzilay
  */
 public class PepseGameManager extends GameManager {
     /** Random object for generating a seed for terrain generation. */
     private static final Random random = new Random();
     /** Seed for terrain generation. */
-    private final int SEED = random.nextInt();
+    private final int SEED;
+    /** Streams the terrain and flora chunks around the camera. */
+    private ChunkManager chunkManager;
+    /** The avatar, the chunk objects closest to it are spawned first. */
+    private Avatar avatar;
+    /** Records where frame time goes. */
+    private final Profiler profiler = new Profiler(Constants.PROFILER_TRACE_FRAMES);
+    /** Delivers the game events at the end of each frame. */
+    private final EventBus eventBus = new EventBus();
+    /** The save the world is kept in, null if it is not saved. */
+    private final WorldSave worldSave;
+    /** The saved state the world continues from, null for a new world. */
+    private final WorldSave.WorldState savedState;
+    /** User input listener, for the save key. */
+    private UserInputListener inputListener;
+
+    /**
+     * Constructs a PepseGameManager continuing the world saved in the default save directory,
+     * or generating a new world with a random seed if there is none.
+     */
+    public PepseGameManager() {
+        this(new WorldSave(Path.of(Constants.SAVE_DIRECTORY)));
+    }
+
+    /**
+     * Constructs a PepseGameManager continuing the world kept in the given save, or generating a
+     * new world with a random seed if it holds none. The world is saved back to it.
+     * @param worldSave The save the world is kept in.
+     */
+    protected PepseGameManager(WorldSave worldSave) {
+        this(worldSave, readSavedState(worldSave));
+    }
+
+    /**
+     * Constructs a PepseGameManager generating the world of the given seed, without saving it.
+     * @param seed The seed of the world.
+     */
+    public PepseGameManager(int seed) {
+        this.SEED = seed;
+        this.worldSave = null;
+        this.savedState = null;
+    }
+
+    private PepseGameManager(WorldSave worldSave, WorldSave.WorldState savedState) {
+        this.SEED = savedState != null ? savedState.getSeed() : random.nextInt();
+        this.worldSave = worldSave;
+        this.savedState = savedState;
+        worldSave.setSeed(SEED);
+    }
 
     /**
      * Initializes the game by creating and adding game objects, setting up the environment,
@@ -39,45 +96,182 @@ public class PepseGameManager extends GameManager {
     public void initializeGame(ImageReader imageReader, SoundReader soundReader,
                                UserInputListener inputListener, WindowController windowController) {
         super.initializeGame(imageReader, soundReader, inputListener, windowController);
+        setGameObjectsCollection(new ProfiledGameObjectCollection(windowController.messages(), profiler));
+        buildWorld(imageReader, inputListener, windowController.getWindowDimensions());
+
+        // initialize energy percentage display
+        NumericEnergyDisplay numericEnergyDisplay = new NumericEnergyDisplay(Vector2.ZERO,
+                Vector2.ONES.mult(Constants.DISPLAY_SIZE), gameObjects(), avatar.energy());
+        gameObjects().addGameObject(numericEnergyDisplay, Layer.UI);
+
+        // initialize profiler overlay, below the energy display
+        ProfilerOverlay profilerOverlay = new ProfilerOverlay(
+                new Vector2(0, Constants.DISPLAY_SIZE), Constants.PROFILER_LINE_DIMENSIONS,
+                profiler, gameObjects(), inputListener);
+        gameObjects().addGameObject(profilerOverlay, Layer.UI);
+    }
 
+    /**
+     * Creates the world and adds it to the game object collection: the sky, the day-night cycle,
+     * the avatar with the camera following it, and the chunks around the camera. Needs only the
+     * game object collection, so it can run without a window. The user interface is not part of
+     * the world, and is added by initializeGame.
+     * @param imageReader      The image reader for loading game assets.
+     * @param inputListener    The user input listener for controlling the avatar.
+     * @param windowDimensions The dimensions of the window.
+     */
+    protected void buildWorld(ImageReader imageReader, UserInputListener inputListener,
+                              Vector2 windowDimensions) {
         // initialize sky
-        GameObject sky = Sky.create(windowController.getWindowDimensions());
+        GameObject sky = Sky.create(windowDimensions);
         gameObjects().addGameObject(sky, Layer.BACKGROUND);
 
         // initialize the ground
-        Terrain terrain = new Terrain(windowController.getWindowDimensions(), SEED);
-        for (Block block: terrain.createInRange(Constants.RANGE_START,
-                (int) windowController.getWindowDimensions().x())) {
-            gameObjects().addGameObject(block, Layer.STATIC_OBJECTS);
-        }
+        Terrain terrain = new Terrain(windowDimensions, SEED);
 
         // initialize night
-        GameObject night = Night.create(windowController.getWindowDimensions(), Constants.CYCLE_LENGTH);
+        GameObject night = Night.create(windowDimensions, Constants.CYCLE_LENGTH);
         gameObjects().addGameObject(night, Layer.FOREGROUND);
 
         // initialize sun
-        GameObject sun = Sun.create(windowController.getWindowDimensions(), Constants.CYCLE_LENGTH);
+        GameObject sun = Sun.create(windowDimensions, Constants.CYCLE_LENGTH);
         gameObjects().addGameObject(sun, Layer.BACKGROUND);
 
         // initialize halo
         GameObject sunHalo = SunHalo.create(sun);
         gameObjects().addGameObject(sunHalo, Layer.BACKGROUND);
 
-        // initialize avatar
-        Avatar avatar = new Avatar(Vector2.ZERO, inputListener, imageReader, gameObjects());
+        // initialize avatar standing on the ground, or where it was saved, with the camera
+        // following it
+        Vector2 avatarPosition = savedState != null ?
+                new Vector2(savedState.getAvatarX(), savedState.getAvatarY()) :
+                new Vector2(Constants.RANGE_START,
+                        terrain.groundHeightAt(Constants.RANGE_START) - Constants.AVATAR_SIZE);
+        avatar = new Avatar(avatarPosition, inputListener, imageReader, gameObjects());
+        avatar.setProfiler(profiler);
+        if (savedState != null) {
+            avatar.energy().setEnergy(savedState.getEnergy());
+        }
+        this.inputListener = inputListener;
         gameObjects().addGameObject(avatar);
-
-        // initialize energy percentage display
-        NumericEnergyDisplay numericEnergyDisplay = new NumericEnergyDisplay(Vector2.ZERO,
-                Vector2.ONES.mult(Constants.DISPLAY_SIZE), gameObjects());
-        gameObjects().addGameObject(numericEnergyDisplay, Layer.UI);
+        installCamera(new Camera(avatar,
+                windowDimensions.mult(0.5f).subtract(avatar.getCenter()),
+                windowDimensions, windowDimensions));
 
         // initialize trees
-        Flora flora = new Flora(gameObjects(), terrain::groundHeightAt, avatar::gainEnergy);
-        flora.createInRange(Constants.RANGE_START, (int) windowController.getWindowDimensions().x());
+        Flora flora = new Flora(gameObjects(), terrain, energyGain -> {
+            avatar.gainEnergy(energyGain);
+            eventBus.publish(EventType.FRUIT_EATEN, energyGain);
+        }, SEED);
+
+        // initialize the spatial index the avatar finds the fruits it touches in
+        SpatialGrid spatialGrid = new SpatialGrid();
+        avatar.setSpatialGrid(spatialGrid);
+
+        // initialize the chunks around the camera
+        chunkManager = new ChunkManager(gameObjects(), terrain, flora, spatialGrid,
+                windowDimensions.x());
+        chunkManager.setProfiler(profiler);
+        chunkManager.setWorldSave(worldSave);
+        chunkManager.update(camera().getCenter().x(), avatar.getCenter().x());
+
+        // initialize the observer mechanism, timing the flora's reaction
+        avatar.setEventBus(eventBus);
+        chunkManager.setEventBus(eventBus);
+        eventBus.subscribe(EventType.JUMP, (type, energyPercent) -> {
+            long start = System.nanoTime();
+            flora.update();
+            profiler.record(Profiler.Section.JUMP, start);
+        });
+    }
 
-        // initialize the observer mechanism
-        avatar.setObserver(flora);
+    /**
+     * Updates the game and streams the world chunks around the camera.
+     * @param deltaTime The time elapsed since the last update.
+     */
+    @Override
+    public void update(float deltaTime) {
+        long start = System.nanoTime();
+        super.update(deltaTime);
+        chunkManager.update(camera().getCenter().x(), avatar.getCenter().x());
+        eventBus.dispatch();
+        if (worldSave != null && inputListener.wasKeyPressedThisFrame(KeyEvent.VK_F5)) {
+            try {
+                saveWorld();
+            } catch (IOException e) {
+                System.err.println("Could not save the world: " + e.getMessage());
+            }
+        }
+        profiler.record(Profiler.Section.FRAME, start);
+        profiler.endFrame();
+    }
+
+    /**
+     * Makes the given camera the camera of the game, which GameManager.setCamera does with the
+     * mouse of the window.
+     * @param camera The camera following the avatar.
+     */
+    protected void installCamera(Camera camera) {
+        setCamera(camera);
+    }
+
+    /**
+     * Saves the world: its seed, the avatar's position and energy, and the eaten fruits of the
+     * loaded chunks and of the chunks unloaded since the last save.
+     * @throws IOException If the save cannot be written.
+     * @throws IllegalStateException If the world is not saved.
+     */
+    protected void saveWorld() throws IOException {
+        if (worldSave == null) {
+            throw new IllegalStateException("The world of seed " + SEED + " is not saved");
+        }
+        chunkManager.save();
+        worldSave.flush();
+        Vector2 avatarPosition = avatar.getTopLeftCorner();
+        worldSave.writeWorld(new WorldSave.WorldState(SEED, avatarPosition.x(),
+                avatarPosition.y(), avatar.energy().getEnergy()));
+    }
+
+    /**
+     * Returns the avatar of the world.
+     * @return The avatar.
+     */
+    protected Avatar avatar() {
+        return avatar;
+    }
+
+    /**
+     * Returns the profiler recording where frame time goes.
+     * @return The profiler.
+     */
+    protected Profiler profiler() {
+        return profiler;
+    }
+
+    /**
+     * Returns the bus delivering the game events at the end of each frame.
+     * @return The event bus.
+     */
+    protected EventBus eventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Returns the chunk manager streaming the world.
+     * @return The chunk manager.
+     */
+    protected ChunkManager chunkManager() {
+        return chunkManager;
+    }
+
+    private static WorldSave.WorldState readSavedState(WorldSave worldSave) {
+        try {
+            return worldSave.readWorld();
+        } catch (IOException e) {
+            System.err.println("Could not load the saved world, starting a new one: " +
+                    e.getMessage());
+            return null;
+        }
     }
 
     /**
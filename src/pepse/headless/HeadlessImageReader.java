@@ -0,0 +1,40 @@
+package pepse.headless;
+
+import danogl.gui.ImageReader;
+import danogl.gui.MessageHandler;
+import danogl.gui.rendering.ImageRenderable;
+import danogl.util.Vector2;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * An ImageReader that reads nothing from disk, for running the game headless.
+ * Every image is a single shared transparent pixel, as nothing is ever rendered.
+ *
+ * @author Noam Barzilay
+ */
+public class HeadlessImageReader extends ImageReader {
+    // The image returned for every path
+    private final ImageRenderable blankImage =
+            new ImageRenderable(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+
+    /**
+     * Constructs a HeadlessImageReader object.
+     *
+     * @param messages Receives the messages of the reader.
+     */
+    public HeadlessImageReader(MessageHandler messages) {
+        super(messages);
+    }
+
+    @Override
+    public ImageRenderable readImage(String imageFilePath, boolean useTopLeftPixelAsTransparency) {
+        return blankImage;
+    }
+
+    @Override
+    public ImageRenderable readImage(String imageFilePath, boolean useTopLeftPixelAsTransparency,
+                                     Vector2 topLeftCorner, Vector2 dimensions) {
+        return blankImage;
+    }
+}
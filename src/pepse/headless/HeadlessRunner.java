@@ -0,0 +1,269 @@
+package pepse.headless;
+
+import danogl.GameObject;
+import danogl.gui.ImageReader;
+import danogl.gui.UserInputListener;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+import pepse.PepseGameManager;
+import pepse.profiling.LatencyHistogram;
+import pepse.profiling.ProfiledGameObjectCollection;
+import pepse.profiling.Profiler;
+import pepse.save.WorldSave;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Runs the game world without a window, for soak and load testing.
+ * The same world PepseGameManager builds is advanced at a fixed time step, while a script drives
+ * the avatar: for a given time it runs right and rests in turns, so its energy recovers, and it
+ * jumps every given number of frames. The runner
+ * reports frame times, live objects, loaded chunks and heap usage periodically and at the end,
+ * along with the profiled sections of the frame, and can export the profiler's trace.
+ * The user interface is not built, as text cannot be laid out without a screen.
+ * Options are passed as name=value arguments, for example:
+ * java -Djava.awt.headless=true -cp target/classes:DanoGameLab.jar pepse.headless.HeadlessRunner
+ * seconds=600 jumpEvery=90
+ *
+ * @author Noam Barzilay
+ */
+public class HeadlessRunner {
+    // Number of nanoseconds in a millisecond
+    private static final double NANOS_PER_MILLI = 1e6;
+    // Number of bytes in a megabyte
+    private static final double BYTES_PER_MEGABYTE = 1 << 20;
+
+    /**
+     * The game manager of a headless run, building the world into a collection without a window.
+     */
+    private static class HeadlessGame extends PepseGameManager {
+        // The camera following the avatar, which the engine's GameManager does not hold
+        private Camera camera;
+
+        private HeadlessGame(int seed) {
+            super(seed);
+        }
+
+        private HeadlessGame(WorldSave worldSave) {
+            super(worldSave);
+        }
+
+        private void save() throws IOException {
+            saveWorld();
+        }
+
+        /**
+         * Keeps the camera in the game rather than in GameManager, whose setCamera hands it to
+         * the mouse of the window. As GameManager only advances a camera it holds, the camera is
+         * advanced by the object it follows, right after that object moves, as GameManager would.
+         *
+         * @param camera The camera following the avatar.
+         */
+        @Override
+        protected void installCamera(Camera camera) {
+            this.camera = camera;
+            camera.getObjectFollowed().addComponent(camera::update);
+        }
+
+        @Override
+        public Camera camera() {
+            return camera;
+        }
+
+        private void start(ImageReader imageReader, UserInputListener inputListener,
+                           HeadlessWindowController windowController) {
+            setGameObjectsCollection(
+                    new ProfiledGameObjectCollection(windowController.messages(), profiler()));
+            buildWorld(imageReader, inputListener, windowController.getWindowDimensions());
+        }
+
+        private int objectCount() {
+            int count = 0;
+            for (GameObject ignored : gameObjects()) {
+                count++;
+            }
+            return count;
+        }
+
+        private float avatarEnergy() {
+            return avatar().energy().getEnergy();
+        }
+
+        private float avatarX() {
+            return avatar().getCenter().x();
+        }
+
+        private int loadedChunkCount() {
+            return chunkManager().loadedChunkCount();
+        }
+
+        private int parkedChunkCount() {
+            return chunkManager().parkedChunkCount();
+        }
+
+        private Profiler sectionProfiler() {
+            return profiler();
+        }
+    }
+
+    /**
+     * Runs the game headless with the given options.
+     *
+     * @param args Options as name=value: seed, seconds (simulated), runSeconds (of running right
+     *             and resting in turns, defaults to seconds), runFor and restFor (seconds of each
+     *             turn, 0 rest runs all along), jumpEvery (frames, 0 never jumps), fps (time steps
+     *             per simulated second), width, height (of the simulated window), reportEvery
+     *             (simulated seconds between progress reports), trace (a CSV file to export
+     *             the per-frame section times to, with their summary next to it) and save (a
+     *             directory to continue the world saved in, if any, and to save it to at the
+     *             end, instead of generating the world of the seed).
+     * @throws IOException If the trace or the save cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        int seed = Integer.parseInt(options.getOrDefault("seed", "1234"));
+        float seconds = Float.parseFloat(options.getOrDefault("seconds", "60"));
+        float runSeconds = Float.parseFloat(
+                options.getOrDefault("runSeconds", String.valueOf(seconds)));
+        float runFor = Float.parseFloat(options.getOrDefault("runFor", "3"));
+        float restFor = Float.parseFloat(options.getOrDefault("restFor", "2"));
+        int jumpEvery = Integer.parseInt(options.getOrDefault("jumpEvery", "60"));
+        int fps = Integer.parseInt(options.getOrDefault("fps", "60"));
+        Vector2 windowDimensions = new Vector2(
+                Float.parseFloat(options.getOrDefault("width", "1280")),
+                Float.parseFloat(options.getOrDefault("height", "720")));
+        float reportEvery = Float.parseFloat(options.getOrDefault("reportEvery", "10"));
+        String trace = options.get("trace");
+        String save = options.get("save");
+
+        HeadlessWindowController windowController = new HeadlessWindowController(windowDimensions);
+        ScriptedInputListener input = new ScriptedInputListener();
+        HeadlessGame game = save != null ? new HeadlessGame(new WorldSave(Path.of(save))) :
+                new HeadlessGame(seed);
+        long buildStart = System.nanoTime();
+        game.start(new HeadlessImageReader(windowController.messages()), input, windowController);
+        System.out.printf("built world in %.1f ms, avatar at x=%.0f%n",
+                (System.nanoTime() - buildStart) / NANOS_PER_MILLI, game.avatarX());
+
+        float deltaTime = 1f / fps;
+        int frames = Math.round(seconds * fps);
+        int runFrames = Math.round(runSeconds * fps);
+        int runTurnFrames = Math.max(1, Math.round(runFor * fps));
+        int cycleFrames = runTurnFrames + Math.round(restFor * fps);
+        int reportFrames = Math.max(1, Math.round(reportEvery * fps));
+        long[] frameNanos = new long[frames];
+        long peakHeap = 0;
+        long runStart = System.nanoTime();
+        for (int frame = 0; frame < frames; frame++) {
+            // Apply the script for this frame
+            input.nextFrame();
+            input.setKeyPressed(KeyEvent.VK_RIGHT,
+                    frame < runFrames && frame % cycleFrames < runTurnFrames);
+            input.setKeyPressed(KeyEvent.VK_SPACE, jumpEvery > 0 && frame % jumpEvery == 0);
+
+            long frameStart = System.nanoTime();
+            game.update(deltaTime);
+            frameNanos[frame] = System.nanoTime() - frameStart;
+
+            if ((frame + 1) % reportFrames == 0) {
+                peakHeap = Math.max(peakHeap, usedHeap());
+                System.out.printf("t=%.0fs x=%.0f objects=%d chunks=%d (parked %d) " +
+                                "heap=%.1fMB frame(last %d): avg=%.3fms max=%.3fms%n",
+                        (frame + 1) * deltaTime, game.avatarX(), game.objectCount(),
+                        game.loadedChunkCount(), game.parkedChunkCount(),
+                        usedHeap() / BYTES_PER_MEGABYTE, reportFrames,
+                        averageMillis(frameNanos, frame + 1 - reportFrames, frame + 1),
+                        maxMillis(frameNanos, frame + 1 - reportFrames, frame + 1));
+            }
+        }
+        long wallNanos = System.nanoTime() - runStart;
+        peakHeap = Math.max(peakHeap, usedHeap());
+
+        long[] sorted = frameNanos.clone();
+        Arrays.sort(sorted);
+        System.out.printf("frames=%d simulated=%.1fs wall=%.1fs (%.1fx real time)%n", frames,
+                frames * deltaTime, wallNanos / 1e9, frames * deltaTime / (wallNanos / 1e9));
+        System.out.printf("frame time: avg=%.3fms p50=%.3fms p99=%.3fms max=%.3fms%n",
+                averageMillis(frameNanos, 0, frames), percentileMillis(sorted, 0.5),
+                percentileMillis(sorted, 0.99), percentileMillis(sorted, 1));
+        System.out.printf("avatar x=%.0f energy=%.0f objects=%d chunks=%d peak heap=%.1fMB%n",
+                game.avatarX(), game.avatarEnergy(), game.objectCount(),
+                game.loadedChunkCount(), peakHeap / BYTES_PER_MEGABYTE);
+
+        Profiler profiler = game.sectionProfiler();
+        for (Profiler.Section section : Profiler.Section.values()) {
+            LatencyHistogram histogram = profiler.histogram(section);
+            System.out.printf("%s: count=%d p50=%.3fms p99=%.3fms max=%.3fms%n", section.label(),
+                    histogram.count(), histogram.percentile(0.5) / NANOS_PER_MILLI,
+                    histogram.percentile(0.99) / NANOS_PER_MILLI,
+                    histogram.max() / NANOS_PER_MILLI);
+        }
+        if (save != null) {
+            game.save();
+            System.out.printf("saved world to %s%n", save);
+        }
+        if (trace != null) {
+            Path tracePath = Path.of(trace);
+            profiler.writeTrace(tracePath);
+            profiler.writeSummary(summaryPathOf(tracePath));
+            System.out.printf("wrote trace to %s%n", tracePath);
+        }
+        System.exit(0);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static Path summaryPathOf(Path tracePath) {
+        String name = tracePath.getFileName().toString();
+        int extension = name.lastIndexOf('.');
+        String stem = extension > 0 ? name.substring(0, extension) : name;
+        return tracePath.resolveSibling(stem + "-summary.csv");
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static double averageMillis(long[] nanos, int from, int to) {
+        if (to <= from) {
+            return 0;
+        }
+        long sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += nanos[i];
+        }
+        return sum / (double) (to - from) / NANOS_PER_MILLI;
+    }
+
+    private static double maxMillis(long[] nanos, int from, int to) {
+        long max = 0;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, nanos[i]);
+        }
+        return max / NANOS_PER_MILLI;
+    }
+
+    private static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, index)] / NANOS_PER_MILLI;
+    }
+}
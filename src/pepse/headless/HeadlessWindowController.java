@@ -0,0 +1,89 @@
+package pepse.headless;
+
+import danogl.gui.MessageHandler;
+import danogl.gui.WindowController;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+/**
+ * A WindowController without a window, for running the game headless.
+ * It reports fixed window dimensions, and ignores every request that needs a real window.
+ *
+ * @author Noam Barzilay
+ */
+public class HeadlessWindowController implements WindowController {
+    // Dimensions of the simulated window
+    private final Vector2 windowDimensions;
+    // Prints messages to the console, as there is no window to show them in
+    private final MessageHandler messages = new MessageHandler(null);
+    // Time scale requested by the game
+    private float timeScale = 1;
+
+    /**
+     * Constructs a HeadlessWindowController object.
+     *
+     * @param windowDimensions The dimensions of the simulated window.
+     */
+    public HeadlessWindowController(Vector2 windowDimensions) {
+        this.windowDimensions = windowDimensions;
+    }
+
+    @Override
+    public void closeWindow() {
+    }
+
+    @Override
+    public void resetGame() {
+    }
+
+    @Override
+    public MessageHandler messages() {
+        return messages;
+    }
+
+    @Override
+    public boolean openYesNoDialog(String msg) {
+        return false;
+    }
+
+    @Override
+    public double getTimeScale() {
+        return timeScale;
+    }
+
+    @Override
+    public void setTimeScale(float timeScale) {
+        this.timeScale = timeScale;
+    }
+
+    @Override
+    public Vector2 getWindowDimensions() {
+        return windowDimensions;
+    }
+
+    @Override
+    public void setTargetFramerate(int targetFramerate) {
+    }
+
+    @Override
+    public void setPauseButton(int pauseButton) {
+    }
+
+    @Override
+    public void setExitButton(int exitButton) {
+    }
+
+    @Override
+    public void setMouseCursor(Renderable renderable, Vector2 dimensions, Vector2 anchor) {
+    }
+
+    @Override
+    public Renderable getMouseCursor() {
+        return null;
+    }
+
+    @Override
+    public Vector2 getMouseCursorDimensions() {
+        return Vector2.ZERO;
+    }
+}
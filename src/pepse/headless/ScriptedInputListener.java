@@ -0,0 +1,113 @@
+package pepse.headless;
+
+import danogl.components.movement_schemes.movement_directing.KeyboardMovementDirector;
+import danogl.components.movement_schemes.movement_directing.MouseMovementDirector;
+import danogl.gui.UserInputListener;
+import danogl.gui.mouse.MouseButton;
+import danogl.gui.rendering.Camera;
+import danogl.util.Vector2;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A UserInputListener whose keys are pressed and released by a script instead of a keyboard,
+ * for running the game headless. The mouse is never used.
+ *
+ * @author Noam Barzilay
+ */
+public class ScriptedInputListener implements UserInputListener {
+    // Keys currently held down
+    private final Set<Integer> pressedKeys = new HashSet<>();
+    // Keys pressed and released since the last frame
+    private final Set<Integer> keysPressedThisFrame = new HashSet<>();
+    private final Set<Integer> keysReleasedThisFrame = new HashSet<>();
+
+    /**
+     * Starts a new frame, forgetting which keys were pressed or released in the last one.
+     */
+    public void nextFrame() {
+        keysPressedThisFrame.clear();
+        keysReleasedThisFrame.clear();
+    }
+
+    /**
+     * Holds a key down, or releases it.
+     *
+     * @param keyCode The code of the key, as in KeyEvent.
+     * @param pressed Whether the key is held down.
+     */
+    public void setKeyPressed(int keyCode, boolean pressed) {
+        if (pressed && pressedKeys.add(keyCode)) {
+            keysPressedThisFrame.add(keyCode);
+        } else if (!pressed && pressedKeys.remove(keyCode)) {
+            keysReleasedThisFrame.add(keyCode);
+        }
+    }
+
+    @Override
+    public boolean isKeyPressed(int keyCode) {
+        return pressedKeys.contains(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyPressedThisFrame(int keyCode) {
+        return keysPressedThisFrame.contains(keyCode);
+    }
+
+    @Override
+    public boolean wasKeyReleasedThisFrame(int keyCode) {
+        return keysReleasedThisFrame.contains(keyCode);
+    }
+
+    @Override
+    public boolean wasMouseButtonClickedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonPressedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean wasMouseButtonReleasedThisFrame(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public boolean isMouseButtonPressed(MouseButton mouseButton) {
+        return false;
+    }
+
+    @Override
+    public Vector2 getMouseScreenPos() {
+        return Vector2.ZERO;
+    }
+
+    @Override
+    public double mouseWheelClicksThisFrame() {
+        return 0;
+    }
+
+    @Override
+    public Set<Integer> pressedKeys() {
+        return Collections.unmodifiableSet(pressedKeys);
+    }
+
+    @Override
+    public Set<MouseButton> pressedMouseButtons() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public MouseMovementDirector mouseMovementDirector(Camera camera) {
+        return null;
+    }
+
+    @Override
+    public KeyboardMovementDirector keyboardMovementDirector() {
+        return null;
+    }
+}
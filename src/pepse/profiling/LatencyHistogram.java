@@ -0,0 +1,123 @@
+package pepse.profiling;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of durations in nanoseconds.
+ * Durations are counted in logarithmic buckets, eight per power of two, so percentiles are reported
+ * within 12.5% of the recorded values while the histogram stays a fixed, small array. Any thread
+ * may record into the histogram while another one reads it, without locking.
+ *
+ * @author Noam Barzilay
+ */
+public class LatencyHistogram {
+    // Number of bits below the highest set bit that select the bucket within a power of two
+    private static final int SUB_BUCKET_BITS = 3;
+    // Number of buckets per power of two
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Number of buckets covering every non-negative long
+    private static final int BUCKET_COUNT = Long.SIZE * SUB_BUCKETS;
+
+    // Number of durations in each bucket
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    // Number, sum and maximum of the recorded durations
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos The duration in nanoseconds, negative durations are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucketOf(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return The number of recorded durations.
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the mean of the recorded durations.
+     *
+     * @return The mean duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    public double mean() {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : sum.get() / (double) recorded;
+    }
+
+    /**
+     * Returns the longest recorded duration.
+     *
+     * @return The maximal duration in nanoseconds.
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration below which the given fraction of the recorded durations fall.
+     *
+     * @param fraction The fraction, between 0 and 1 (e.g. 0.99 for the 99th percentile).
+     * @return The upper bound of the bucket holding the percentile, at most the maximal duration,
+     * in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long percentile(double fraction) {
+        long recorded = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            recorded += buckets.get(i);
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forgets every recorded duration.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS;
+        int subBucket = bucket % SUB_BUCKETS;
+        long lowerBound = (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
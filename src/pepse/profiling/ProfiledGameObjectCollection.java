@@ -0,0 +1,35 @@
+package pepse.profiling;
+
+import danogl.collisions.GameObjectCollection;
+import danogl.gui.MessageHandler;
+
+/**
+ * A GameObjectCollection that records the duration of its collision pass in a profiler.
+ *
+ * @author Noam Barzilay
+ */
+public class ProfiledGameObjectCollection extends GameObjectCollection {
+    // Receives the durations of the collision passes
+    private final Profiler profiler;
+
+    /**
+     * Constructs a ProfiledGameObjectCollection object.
+     *
+     * @param messages Receives the messages of the collection.
+     * @param profiler Receives the durations of the collision passes.
+     */
+    public ProfiledGameObjectCollection(MessageHandler messages, Profiler profiler) {
+        super(messages);
+        this.profiler = profiler;
+    }
+
+    /**
+     * Handles the collisions between the objects of the collection, recording how long it takes.
+     */
+    @Override
+    public void handleCollisions() {
+        long start = System.nanoTime();
+        super.handleCollisions();
+        profiler.record(Profiler.Section.COLLISIONS, start);
+    }
+}
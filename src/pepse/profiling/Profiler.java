@@ -0,0 +1,168 @@
+package pepse.profiling;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class records where frame time goes.
+ * Every section of the game (the whole frame update, the avatar update, the jump reaction delivered
+ * by the event bus at the end of the frame, chunk generation and the collision pass) records its
+ * durations into a lock-free histogram, from any thread. The time each section takes is also summed
+ * per frame, and the sums of the most recent frames are kept in a trace, which can be written to a
+ * CSV file together with a summary of the histograms, so hitches of real sessions can be diagnosed.
+ *
+ * @author Noam Barzilay
+ */
+public class Profiler {
+    // Number of nanoseconds in a millisecond
+    private static final double NANOS_PER_MILLI = 1e6;
+
+    /**
+     * The profiled sections of a frame.
+     */
+    public enum Section {
+        /** The whole update of a frame, including all other sections on the game loop thread. */
+        FRAME("frame"),
+        /**
+         * The update of the avatar, including finding the fruits it touches. The jump reaction
+         * it triggers runs later, when the event bus dispatches, and is recorded under JUMP.
+         */
+        AVATAR("avatar"),
+        /** The reaction of the flora to a jump, delivered by the event bus. */
+        JUMP("jump"),
+        /** Generating the terrain or the flora of a chunk, on a generation thread. */
+        GENERATION("generation"),
+        /** The collision pass of the game object collection. */
+        COLLISIONS("collisions");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Returns the name of the section, as shown in the overlay and in exported files.
+         *
+         * @return The name of the section.
+         */
+        public String label() {
+            return label;
+        }
+    }
+
+    // Histogram of the durations of each section
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Section.values().length];
+    // Time spent in each section during the current frame
+    private final AtomicLongArray currentFrame = new AtomicLongArray(Section.values().length);
+    // Time spent in each section during the most recent frames, as a ring of frames
+    private final long[][] trace;
+    // Number of frames ended so far
+    private long frameCount;
+
+    /**
+     * Constructs a Profiler object.
+     *
+     * @param traceFrames The number of most recent frames kept in the trace.
+     */
+    public Profiler(int traceFrames) {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+        trace = new long[traceFrames][Section.values().length];
+    }
+
+    /**
+     * Records the duration of a section that started at the given time, ending now.
+     *
+     * @param section    The section.
+     * @param startNanos The time the section started at, as given by System.nanoTime.
+     */
+    public void record(Section section, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        histograms[section.ordinal()].record(nanos);
+        currentFrame.addAndGet(section.ordinal(), nanos);
+    }
+
+    /**
+     * Ends the current frame, moving the time spent in each section into the trace.
+     * Called once per frame, on the game loop thread.
+     */
+    public void endFrame() {
+        long[] frame = trace[(int) (frameCount % trace.length)];
+        for (int i = 0; i < frame.length; i++) {
+            frame[i] = currentFrame.getAndSet(i, 0);
+        }
+        frameCount++;
+    }
+
+    /**
+     * Returns the histogram of the durations of a section.
+     *
+     * @param section The section.
+     * @return The histogram of the section.
+     */
+    public LatencyHistogram histogram(Section section) {
+        return histograms[section.ordinal()];
+    }
+
+    /**
+     * Returns the number of frames ended so far.
+     *
+     * @return The number of frames.
+     */
+    public long frameCount() {
+        return frameCount;
+    }
+
+    /**
+     * Writes a CSV summary of every section: the number of durations recorded, their mean,
+     * median, 99th percentile and maximum, in milliseconds.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeSummary(Path path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("section,count,mean_ms,p50_ms,p99_ms,max_ms");
+            for (Section section : Section.values()) {
+                LatencyHistogram histogram = histogram(section);
+                writer.println(String.format(Locale.ROOT, "%s,%d,%.4f,%.4f,%.4f,%.4f",
+                        section.label(), histogram.count(), histogram.mean() / NANOS_PER_MILLI,
+                        histogram.percentile(0.5) / NANOS_PER_MILLI,
+                        histogram.percentile(0.99) / NANOS_PER_MILLI,
+                        histogram.max() / NANOS_PER_MILLI));
+            }
+        }
+    }
+
+    /**
+     * Writes the trace as CSV: one row per recent frame, with the time spent in each section
+     * during the frame, in milliseconds. Called on the game loop thread.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeTrace(Path path) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            StringBuilder header = new StringBuilder("frame");
+            for (Section section : Section.values()) {
+                header.append(',').append(section.label()).append("_ms");
+            }
+            writer.println(header);
+            long firstFrame = Math.max(0, frameCount - trace.length);
+            for (long frameIndex = firstFrame; frameIndex < frameCount; frameIndex++) {
+                long[] frame = trace[(int) (frameIndex % trace.length)];
+                StringBuilder row = new StringBuilder(Long.toString(frameIndex));
+                for (long nanos : frame) {
+                    row.append(String.format(Locale.ROOT, ",%.4f", nanos / NANOS_PER_MILLI));
+                }
+                writer.println(row);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package pepse.profiling;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import danogl.collisions.Layer;
+import danogl.components.CoordinateSpace;
+import danogl.gui.UserInputListener;
+import danogl.gui.rendering.TextRenderable;
+import danogl.util.Vector2;
+import pepse.Constants;
+
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * This class displays the profiler's measurements on top of the game.
+ * Each line shows the median, 99th percentile and maximal duration of a profiled section, and a
+ * last line shows the number of live objects per layer. The overlay is hidden until its toggle key
+ * is pressed, and refreshes its text periodically rather than every frame. Another key writes the
+ * profiler's summary and trace to CSV files in the working directory.
+ *
+ * @author Noam Barzilay
+ */
+public class ProfilerOverlay extends GameObject {
+    // Key showing and hiding the overlay
+    private static final int TOGGLE_KEY = KeyEvent.VK_F3;
+    // Key writing the profiler's summary and trace to files
+    private static final int EXPORT_KEY = KeyEvent.VK_F4;
+    // Number of nanoseconds in a millisecond
+    private static final double NANOS_PER_MILLI = 1e6;
+    // Layers whose objects are counted, and their names
+    private static final int[] COUNTED_LAYERS = {Layer.BACKGROUND, Constants.GROUND_TEXTURE_LAYER,
+            Layer.STATIC_OBJECTS, Constants.FRUIT_LAYER, Layer.DEFAULT, Layer.FOREGROUND,
+            Layer.UI};
+    private static final String[] COUNTED_LAYER_NAMES = {"background", "texture", "static",
+            "fruit", "default", "foreground", "ui"};
+
+    private final Profiler profiler;
+    private final GameObjectCollection gameObjectCollection;
+    private final UserInputListener inputListener;
+    // One text line per profiled section, and a last one for the object counts
+    private final TextRenderable[] lines;
+    private final GameObject[] lineObjects;
+    // Whether the overlay is shown
+    private boolean visible;
+    // Time since the text was last refreshed
+    private float timeSinceRefresh;
+
+    /**
+     * Constructs a ProfilerOverlay object, hidden, and adds its text lines to the UI layer.
+     *
+     * @param topLeftCorner        The top-left corner of the first line.
+     * @param lineDimensions       The dimensions of each line.
+     * @param profiler             The profiler whose measurements are shown.
+     * @param gameObjectCollection The collection whose objects are counted.
+     * @param inputListener        The user input listener for the toggle and export keys.
+     */
+    public ProfilerOverlay(Vector2 topLeftCorner, Vector2 lineDimensions, Profiler profiler,
+                           GameObjectCollection gameObjectCollection,
+                           UserInputListener inputListener) {
+        super(topLeftCorner, Vector2.ZERO, null);
+        this.profiler = profiler;
+        this.gameObjectCollection = gameObjectCollection;
+        this.inputListener = inputListener;
+        int lineCount = Profiler.Section.values().length + 1;
+        lines = new TextRenderable[lineCount];
+        lineObjects = new GameObject[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            lines[i] = new TextRenderable("");
+            lines[i].setColor(Color.BLACK);
+            lineObjects[i] = new GameObject(
+                    topLeftCorner.add(new Vector2(0, i * lineDimensions.y())), lineDimensions,
+                    lines[i]);
+            lineObjects[i].setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
+            lineObjects[i].renderer().setOpaqueness(0);
+            gameObjectCollection.addGameObject(lineObjects[i], Layer.UI);
+        }
+    }
+
+    /**
+     * Handles the toggle and export keys, and refreshes the text of the shown overlay
+     * periodically.
+     *
+     * @param deltaTime The time elapsed since the last update.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        if (inputListener.wasKeyPressedThisFrame(TOGGLE_KEY)) {
+            visible = !visible;
+            for (GameObject lineObject : lineObjects) {
+                lineObject.renderer().setOpaqueness(visible ? 1 : 0);
+            }
+            timeSinceRefresh = Constants.PROFILER_REFRESH_TIME;
+        }
+        if (inputListener.wasKeyPressedThisFrame(EXPORT_KEY)) {
+            export();
+        }
+        if (!visible) {
+            return;
+        }
+        timeSinceRefresh += deltaTime;
+        if (timeSinceRefresh >= Constants.PROFILER_REFRESH_TIME) {
+            timeSinceRefresh = 0;
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        Profiler.Section[] sections = Profiler.Section.values();
+        for (int i = 0; i < sections.length; i++) {
+            LatencyHistogram histogram = profiler.histogram(sections[i]);
+            lines[i].setString(String.format(Locale.ROOT, "%s p50 %.2f p99 %.2f max %.2f ms",
+                    sections[i].label(), histogram.percentile(0.5) / NANOS_PER_MILLI,
+                    histogram.percentile(0.99) / NANOS_PER_MILLI,
+                    histogram.max() / NANOS_PER_MILLI));
+        }
+        StringBuilder counts = new StringBuilder("objects");
+        for (int i = 0; i < COUNTED_LAYERS.length; i++) {
+            int count = 0;
+            for (GameObject ignored : gameObjectCollection.objectsInLayer(COUNTED_LAYERS[i])) {
+                count++;
+            }
+            counts.append(' ').append(COUNTED_LAYER_NAMES[i]).append(' ').append(count);
+        }
+        lines[sections.length].setString(counts.toString());
+    }
+
+    private void export() {
+        long time = System.currentTimeMillis();
+        try {
+            profiler.writeSummary(Path.of("profile-summary-" + time + ".csv"));
+            profiler.writeTrace(Path.of("profile-trace-" + time + ".csv"));
+        } catch (IOException e) {
+            System.err.println("Could not write the profile: " + e.getMessage());
+        }
+    }
+}
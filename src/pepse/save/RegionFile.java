@@ -0,0 +1,140 @@
+package pepse.save;
+
+import pepse.Constants;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped file holding the saved state of a fixed range of consecutive chunks.
+ * The file is a small header followed by one fixed-size record per chunk, so the record of a
+ * chunk is read and written in place, at an offset computed from its index, without parsing or
+ * rewriting the rest of the file. A record is a presence flag followed by the bitset of the
+ * chunk's eaten fruits, in the order Flora creates them. The header holds the seed of the world
+ * the records belong to, and records of another world are never read.
+ *
+ * @author Noam Barzilay
+ */
+final class RegionFile {
+    // Identifies region files, the bytes "PEPR"
+    private static final int MAGIC = 0x50455052;
+    // Version of the region file layout
+    private static final int VERSION = 2;
+    // Offset of the seed of the world within the header
+    private static final int SEED_OFFSET = 2 * Integer.BYTES;
+    // Size of the header: the magic number, the version and the seed
+    private static final int HEADER_BYTES = 3 * Integer.BYTES;
+    // Size of a chunk record: the presence flag and the eaten fruits bitset
+    private static final int RECORD_BYTES = Integer.BYTES +
+            Constants.SAVE_FRUIT_WORDS * Long.BYTES;
+    // Size of the whole file
+    private static final int FILE_BYTES = HEADER_BYTES +
+            Constants.SAVE_REGION_CHUNKS * RECORD_BYTES;
+    // Value of the presence flag of a saved record
+    private static final int PRESENT = 1;
+
+    // The mapped contents of the file
+    private final MappedByteBuffer buffer;
+
+    private RegionFile(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps a region file. A file that is missing, or is not a region file of this version, is
+     * only replaced by an empty one when creating, and is otherwise left untouched.
+     *
+     * @param path   The path of the file.
+     * @param seed   The seed of the world, stamped on a created file.
+     * @param create Whether to create the file if it is missing or unusable.
+     * @return The mapped region file, or null if it is missing or unusable and is not created.
+     * @throws IOException If the file cannot be mapped.
+     */
+    static RegionFile open(Path path, int seed, boolean create) throws IOException {
+        if (!create && !Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            boolean usable = channel.size() == FILE_BYTES;
+            if (!usable) {
+                if (!create) {
+                    return null;
+                }
+                channel.truncate(0);
+            }
+            // The mapping stays valid once the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_BYTES);
+            usable = usable && buffer.getInt(0) == MAGIC && buffer.getInt(Integer.BYTES) == VERSION;
+            if (!usable) {
+                if (!create) {
+                    return null;
+                }
+                clear(buffer, seed);
+            }
+            return new RegionFile(buffer);
+        }
+    }
+
+    /**
+     * Reads the eaten fruits of a chunk.
+     *
+     * @param slot  The position of the chunk in the region.
+     * @param seed  The seed of the world, the records of another world are not read.
+     * @param words Receives the bitset of the eaten fruits, if the chunk has a saved record.
+     * @return Whether the chunk has a saved record of this world.
+     */
+    boolean read(int slot, int seed, long[] words) {
+        int offset = HEADER_BYTES + slot * RECORD_BYTES;
+        if (buffer.getInt(SEED_OFFSET) != seed || buffer.getInt(offset) != PRESENT) {
+            return false;
+        }
+        offset += Integer.BYTES;
+        for (int i = 0; i < words.length; i++) {
+            words[i] = buffer.getLong(offset + i * Long.BYTES);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the eaten fruits of a chunk. Clears the records of another world first.
+     *
+     * @param slot  The position of the chunk in the region.
+     * @param seed  The seed of the world.
+     * @param words The bitset of the eaten fruits.
+     */
+    void write(int slot, int seed, long[] words) {
+        if (buffer.getInt(SEED_OFFSET) != seed) {
+            clear(buffer, seed);
+        }
+        int offset = HEADER_BYTES + slot * RECORD_BYTES;
+        buffer.putInt(offset, PRESENT);
+        offset += Integer.BYTES;
+        for (int i = 0; i < words.length; i++) {
+            buffer.putLong(offset + i * Long.BYTES, words[i]);
+        }
+    }
+
+    /**
+     * Writes the changes of the mapped contents to the disk.
+     */
+    void force() {
+        buffer.force();
+    }
+
+    /**
+     * Writes an empty region of the given world to the mapped contents of a file.
+     */
+    private static void clear(MappedByteBuffer buffer, int seed) {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(Integer.BYTES, VERSION);
+        buffer.putInt(SEED_OFFSET, seed);
+        for (int offset = HEADER_BYTES; offset < FILE_BYTES; offset += RECORD_BYTES) {
+            buffer.putInt(offset, 0);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package pepse.save;
+
+import pepse.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class stores a world in a directory, as the changes made to it rather than its contents.
+ * The world is generated from its seed, so the save holds the seed and the avatar's state in a
+ * small world file, and the eaten fruits of every chunk that has any in region files, each
+ * covering SAVE_REGION_CHUNKS consecutive chunks. Region files are memory-mapped, and are only
+ * opened when a chunk of theirs is streamed in or saved, so loading a world reads a few bytes,
+ * however much of it was explored. Region files are stamped with the seed of their world, and
+ * the ones of another world are ignored when read and cleared when written.
+ *
+ * @author Noam Barzilay
+ */
+public class WorldSave {
+    // Identifies world files, the bytes "PEPW"
+    private static final int MAGIC = 0x50455057;
+    // Version of the world file layout
+    private static final int VERSION = 1;
+    // Name of the world file within the save directory
+    private static final String WORLD_FILE = "world.dat";
+    // Size of the world file: magic, version, seed, avatar position and energy
+    private static final int WORLD_BYTES = 3 * Integer.BYTES + 3 * Float.BYTES;
+    // Pattern of the names of region files within the save directory
+    private static final String REGION_FILES = "region.*.dat";
+
+    // The directory the world is saved in
+    private final Path directory;
+    // Mapped region files by their index
+    private final Map<Integer, RegionFile> regions = new HashMap<>();
+    // Seed of the world the chunk records are read and written for
+    private int seed;
+
+    /**
+     * The state of a saved world that is not generated from its seed.
+     */
+    public static final class WorldState {
+        private final int seed;
+        private final float avatarX;
+        private final float avatarY;
+        private final float energy;
+
+        /**
+         * Constructs a WorldState object.
+         *
+         * @param seed    The seed of the world.
+         * @param avatarX The x-coordinate of the avatar's top-left corner.
+         * @param avatarY The y-coordinate of the avatar's top-left corner.
+         * @param energy  The energy level of the avatar.
+         */
+        public WorldState(int seed, float avatarX, float avatarY, float energy) {
+            this.seed = seed;
+            this.avatarX = avatarX;
+            this.avatarY = avatarY;
+            this.energy = energy;
+        }
+
+        /**
+         * Returns the seed of the world.
+         *
+         * @return The seed.
+         */
+        public int getSeed() {
+            return seed;
+        }
+
+        /**
+         * Returns the x-coordinate of the avatar's top-left corner.
+         *
+         * @return The avatar's x-coordinate.
+         */
+        public float getAvatarX() {
+            return avatarX;
+        }
+
+        /**
+         * Returns the y-coordinate of the avatar's top-left corner.
+         *
+         * @return The avatar's y-coordinate.
+         */
+        public float getAvatarY() {
+            return avatarY;
+        }
+
+        /**
+         * Returns the energy level of the avatar.
+         *
+         * @return The avatar's energy.
+         */
+        public float getEnergy() {
+            return energy;
+        }
+    }
+
+    /**
+     * Constructs a WorldSave object. Nothing is read or written until requested.
+     *
+     * @param directory The directory the world is saved in, created when first saving.
+     */
+    public WorldSave(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Sets the seed of the world whose chunk records are read and written.
+     *
+     * @param seed The seed of the world.
+     */
+    public void setSeed(int seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Reads the saved state of the world. If the world was never saved, deletes the region files
+     * left in the directory, since they belong to no saved world.
+     *
+     * @return The saved state, or null if the world was never saved.
+     * @throws IOException If the world file cannot be read, or is not a world file.
+     */
+    public WorldState readWorld() throws IOException {
+        Path path = directory.resolve(WORLD_FILE);
+        if (!Files.exists(path)) {
+            deleteRegions();
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(WORLD_BYTES);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read until the buffer is full or the file ends
+            }
+        }
+        buffer.flip();
+        if (buffer.remaining() != WORLD_BYTES || buffer.getInt() != MAGIC ||
+                buffer.getInt() != VERSION) {
+            throw new IOException("Not a world file of this version: " + path);
+        }
+        return new WorldState(buffer.getInt(), buffer.getFloat(), buffer.getFloat(),
+                buffer.getFloat());
+    }
+
+    /**
+     * Writes the state of the world, replacing the saved one at once, so an interrupted save
+     * never leaves a partial world file.
+     *
+     * @param state The state of the world.
+     * @throws IOException If the world file cannot be written.
+     */
+    public void writeWorld(WorldState state) throws IOException {
+        Files.createDirectories(directory);
+        ByteBuffer buffer = ByteBuffer.allocate(WORLD_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(state.seed)
+                .putFloat(state.avatarX).putFloat(state.avatarY).putFloat(state.energy);
+        buffer.flip();
+        Path path = directory.resolve(WORLD_FILE);
+        Path temporary = directory.resolve(WORLD_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the eaten fruits of a chunk. Does not create its region file if it does not exist.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @param words      Receives the bitset of the eaten fruits, SAVE_FRUIT_WORDS long, if the
+     *                   chunk has a saved record.
+     * @return Whether the chunk has a saved record.
+     * @throws IOException If the region file of the chunk cannot be mapped.
+     */
+    public boolean readEatenFruits(int chunkIndex, long[] words) throws IOException {
+        RegionFile region = region(chunkIndex, false);
+        return region != null && region.read(slotOf(chunkIndex), seed, words);
+    }
+
+    /**
+     * Writes the eaten fruits of a chunk. A chunk with no eaten fruits is only written if its
+     * region file exists, to clear its previous record, so unchanged chunks create no files.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @param words      The bitset of the eaten fruits, SAVE_FRUIT_WORDS long.
+     * @throws IOException If the region file of the chunk cannot be created or mapped.
+     */
+    public void writeEatenFruits(int chunkIndex, long[] words) throws IOException {
+        boolean anyEaten = false;
+        for (long word : words) {
+            anyEaten |= word != 0;
+        }
+        RegionFile region = region(chunkIndex, anyEaten);
+        if (region != null) {
+            region.write(slotOf(chunkIndex), seed, words);
+        }
+    }
+
+    /**
+     * Writes the changes of the mapped region files to the disk.
+     */
+    public void flush() {
+        for (RegionFile region : regions.values()) {
+            region.force();
+        }
+    }
+
+    /**
+     * Returns the mapped region file of a chunk, mapping it if needed.
+     *
+     * @param chunkIndex The index of the chunk.
+     * @param create     Whether to create the region file if it does not exist.
+     * @return The region file, or null if it does not exist and is not created.
+     */
+    private RegionFile region(int chunkIndex, boolean create) throws IOException {
+        int regionIndex = Math.floorDiv(chunkIndex, Constants.SAVE_REGION_CHUNKS);
+        RegionFile region = regions.get(regionIndex);
+        if (region == null) {
+            Path path = directory.resolve("region." + regionIndex + ".dat");
+            if (create) {
+                Files.createDirectories(directory);
+            }
+            region = RegionFile.open(path, seed, create);
+            if (region != null) {
+                regions.put(regionIndex, region);
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Deletes the region files in the directory, if it exists.
+     */
+    private void deleteRegions() throws IOException {
+        regions.clear();
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, REGION_FILES)) {
+            for (Path path : stream) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static int slotOf(int chunkIndex) {
+        return Math.floorMod(chunkIndex, Constants.SAVE_REGION_CHUNKS);
+    }
+}
@@ -0,0 +1,88 @@
+package pepse.util;
+
+import danogl.gui.rendering.Renderable;
+
+import java.awt.*;
+import java.util.function.Function;
+
+/**
+ * A fixed set of colors approximating a base color, each with a renderable created once.
+ * Instead of allocating a new color and a new renderable for every object, objects pick a variant
+ * by hashing their cell coordinates, so identical variants are shared and the same cell always
+ * gets the same color.
+ *
+ * @author Noam Barzilay
+ */
+public class ColorPalette {
+    // The color variants, and a renderable of each of them
+    private final Color[] colors;
+    private final Renderable[] renderables;
+
+    /**
+     * Constructs a ColorPalette object.
+     *
+     * @param baseColor         The color the variants approximate.
+     * @param size              The number of variants.
+     * @param renderableFactory Creates the renderable of a variant.
+     */
+    public ColorPalette(Color baseColor, int size,
+                        Function<Color, ? extends Renderable> renderableFactory) {
+        this.colors = ColorSupplier.palette(baseColor, size);
+        this.renderables = new Renderable[size];
+        for (int i = 0; i < size; i++) {
+            renderables[i] = renderableFactory.apply(colors[i]);
+        }
+    }
+
+    /**
+     * Returns the color variant of the specified cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The color of the cell.
+     */
+    public Color color(int x, int y) {
+        return colors[indexOf(x, y)];
+    }
+
+    /**
+     * Returns the renderable of the color variant of the specified cell.
+     *
+     * @param x The x-coordinate of the cell.
+     * @param y The y-coordinate of the cell.
+     * @return The renderable of the cell.
+     */
+    public Renderable renderable(int x, int y) {
+        return renderables[indexOf(x, y)];
+    }
+
+    /**
+     * Returns the renderable of the specified variant.
+     *
+     * @param index The index of the variant, smaller than the size of the palette.
+     * @return The renderable of the variant.
+     */
+    public Renderable renderable(int index) {
+        return renderables[index];
+    }
+
+    /**
+     * Returns the number of variants in the palette.
+     *
+     * @return The number of variants.
+     */
+    public int size() {
+        return colors.length;
+    }
+
+    /**
+     * Hashes the coordinates of a cell into the index of its variant.
+     */
+    private int indexOf(int x, int y) {
+        int hash = x * 0x9E3779B1 + y * 0x85EBCA77;
+        hash ^= hash >>> 15;
+        hash *= 0x2C1B3C6D;
+        hash ^= hash >>> 12;
+        return Math.floorMod(hash, colors.length);
+    }
+}
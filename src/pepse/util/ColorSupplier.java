@@ -1,7 +1,9 @@
 package pepse.util;
 
 import java.awt.*;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Provides procedurally-generated colors around a pivot.
@@ -9,7 +11,6 @@ import java.util.Random;
  */
 public final class ColorSupplier {
     private static final int DEFAULT_COLOR_DELTA = 10;
-    private final static Random random = new Random();
 
     /**
      * Returns a color similar to baseColor, with a default delta.
@@ -29,11 +30,34 @@ public final class ColorSupplier {
      * @return A color similar to baseColor.
      */
     public static Color approximateColor(Color baseColor, int colorDelta) {
+        return approximateColor(baseColor, colorDelta, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Returns a fixed number of colors similar to baseColor, with a default delta.
+     * The colors depend only on baseColor, so a palette is the same in every run.
+     *
+     * @param baseColor A color that we wish to approximate.
+     * @param size The number of colors.
+     * @return The colors similar to baseColor.
+     */
+    public static Color[] palette(Color baseColor, int size) {
+        SplittableRandom random = new SplittableRandom(baseColor.getRGB());
+        Color[] colors = new Color[size];
+        for (int i = 0; i < size; i++) {
+            colors[i] = approximateColor(baseColor, DEFAULT_COLOR_DELTA, random);
+        }
+        return colors;
+    }
 
+    private static Color approximateColor(Color baseColor, int colorDelta, RandomGenerator random) {
         return new Color(
-                randomChannelInRange(baseColor.getRed()-colorDelta, baseColor.getRed()+colorDelta),
-                randomChannelInRange(baseColor.getGreen()-colorDelta, baseColor.getGreen()+colorDelta),
-                randomChannelInRange(baseColor.getBlue()-colorDelta, baseColor.getBlue()+colorDelta));
+                randomChannelInRange(baseColor.getRed()-colorDelta,
+                        baseColor.getRed()+colorDelta, random),
+                randomChannelInRange(baseColor.getGreen()-colorDelta,
+                        baseColor.getGreen()+colorDelta, random),
+                randomChannelInRange(baseColor.getBlue()-colorDelta,
+                        baseColor.getBlue()+colorDelta, random));
     }
 
     /**
@@ -41,9 +65,10 @@ public final class ColorSupplier {
      *
      * @param min The lower bound of the given range.
      * @param max The upper bound of the given range.
+     * @param random The random generator to draw the value from.
      * @return A random number in the range [min, max], clipped to [0,255].
      */
-    private static int randomChannelInRange(int min, int max) {
+    private static int randomChannelInRange(int min, int max, RandomGenerator random) {
         int channel = random.nextInt(max-min+1) + min;
         return Math.min(255, Math.max(channel, 0));
     }
@@ -1,16 +1,71 @@
 package pepse.util;
 
-import java.util.Random;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
 
 public class NoiseGenerator {
-    private double seed;
-    private long default_size;
-    private int[] p;
-    private int[] permutation;
-    private double startPoint;
+    // Size of the lattice along each axis, and of the permutation
+    private static final int PERMUTATION_SIZE = 256;
+    // Number of seeds whose tables are kept for later generators
+    private static final int MAX_CACHED_SEEDS = 8;
+    // Tables derived from the most recently used seeds, in least recently used order, shared by
+    // every generator with these seeds
+    private static final Map<Long, Tables> TABLES_BY_SEED =
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Tables> eldest) {
+                    return size() > MAX_CACHED_SEEDS;
+                }
+            };
+
+    private final Tables tables;
+    private final double startPoint;
+
+    /**
+     * The immutable tables derived from a seed.
+     * The permutation is shuffled from the seed, and the gradients of the lattice points on each
+     * side of every unit segment along x are precomputed from it. Every sample is taken at
+     * y = z = 0, where the fade curves of y and z are 0, so only the two corners at y = z = 0
+     * contribute, and their gradients reduce to -x, 0 or x.
+     */
+    private static final class Tables {
+        // Gradients of the lattice points at the left and right of each unit segment along x
+        private final double[] leftGradients = new double[PERMUTATION_SIZE];
+        private final double[] rightGradients = new double[PERMUTATION_SIZE];
+
+        private Tables(double seed) {
+            // Shuffle the permutation from the seed
+            int[] permutation = new int[PERMUTATION_SIZE];
+            for (int i = 0; i < PERMUTATION_SIZE; i++) {
+                permutation[i] = i;
+            }
+            SplittableRandom random = new SplittableRandom(Double.doubleToLongBits(seed));
+            for (int i = PERMUTATION_SIZE - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swapped = permutation[i];
+                permutation[i] = permutation[j];
+                permutation[j] = swapped;
+            }
+
+            // Populate the doubled permutation array
+            int[] p = new int[PERMUTATION_SIZE * 2];
+            for (int i = 0; i < PERMUTATION_SIZE; i++) {
+                p[PERMUTATION_SIZE + i] = p[i] = permutation[i];
+            }
+
+            for (int X = 0; X < PERMUTATION_SIZE; X++) {
+                leftGradients[X] = grad(p[p[p[X]]], 1, 0, 0);
+                rightGradients[X] = grad(p[p[p[X + 1]]], 1, 0, 0);
+            }
+        }
+    }
 
     /**
      * The constructor of the NoiseGenerator class.
+     * Generators with the same seed share the same immutable tables, so constructing one is cheap,
+     * and a single generator can be used concurrently from several threads. Only the tables of the
+     * few most recently used seeds are kept, so generating many worlds does not grow the cache.
      *
      * @param seed can be anything you want (even 1234 or new Random().nextGaussian()).
      *             This seed is the basis of the random generator, which
@@ -22,41 +77,11 @@ public class NoiseGenerator {
      *
      */
     public NoiseGenerator(double seed, int startPoint) {
-        this.seed = seed;
-        this.startPoint = startPoint;
-        init();
-    }
-
-    private void init() {
-        // Initialize the permutation array.
-        this.p = new int[512];
-        this.permutation = new int[]{151, 160, 137, 91, 90, 15, 131, 13, 201,
-                95, 96, 53, 194, 233, 7, 225, 140, 36, 103, 30, 69, 142, 8, 99,
-                37, 240, 21, 10, 23, 190, 6, 148, 247, 120, 234, 75, 0, 26,
-                197, 62, 94, 252, 219, 203, 117, 35, 11, 32, 57, 177, 33, 88,
-                237, 149, 56, 87, 174, 20, 125, 136, 171, 168, 68, 175, 74,
-                165, 71, 134, 139, 48, 27, 166, 77, 146, 158, 231, 83, 111,
-                229, 122, 60, 211, 133, 230, 220, 105, 92, 41, 55, 46, 245, 40,
-                244, 102, 143, 54, 65, 25, 63, 161, 1, 216, 80, 73, 209, 76,
-                132, 187, 208, 89, 18, 169, 200, 196, 135, 130, 116, 188, 159,
-                86, 164, 100, 109, 198, 173, 186, 3, 64, 52, 217, 226, 250,
-                124, 123, 5, 202, 38, 147, 118, 126, 255, 82, 85, 212, 207,
-                206, 59, 227, 47, 16, 58, 17, 182, 189, 28, 42, 223, 183, 170,
-                213, 119, 248, 152, 2, 44, 154, 163, 70, 221, 153, 101, 155,
-                167, 43, 172, 9, 129, 22, 39, 253, 19, 98, 108, 110, 79, 113,
-                224, 232, 178, 185, 112, 104, 218, 246, 97, 228, 251, 34, 242,
-                193, 238, 210, 144, 12, 191, 179, 162, 241, 81, 51, 145, 235,
-                249, 14, 239, 107, 49, 192, 214, 31, 181, 199, 106, 157, 184,
-                84, 204, 176, 115, 121, 50, 45, 127, 4, 150, 254, 138, 236,
-                205, 93, 222, 114, 67, 29, 24, 72, 243, 141, 128, 195, 78, 66,
-                215, 61, 156, 180};
-        this.default_size = 35;
-
-        // Populate it
-        for (int i = 0; i < 256; i++) {
-            p[256 + i] = p[i] = permutation[i];
+        synchronized (TABLES_BY_SEED) {
+            this.tables = TABLES_BY_SEED.computeIfAbsent(Double.doubleToLongBits(seed),
+                    bits -> new Tables(seed));
         }
-
+        this.startPoint = startPoint;
     }
 
     /**
@@ -78,58 +103,56 @@ public class NoiseGenerator {
         double currentPoint = startPoint;
 
         while (currentPoint >= 1) {
-            value += smoothNoise((x / currentPoint), 0, 0) * currentPoint;
+            value += smoothNoise(x / currentPoint) * currentPoint;
             currentPoint /= 2.0;
         }
 
         return value * factor / startPoint;
     }
 
+    /**
+     * Generates the noise of a contiguous, evenly spaced range of x-coordinates in one pass.
+     * Gives exactly the same values as calling noise for each of the x-coordinates, with a
+     * tight loop over the samples.
+     *
+     * @param startX the first x-coordinate to receive noise for.
+     * @param step   the distance between consecutive x-coordinates.
+     * @param factor describes how large the noise should be, as in noise.
+     * @param out    receives the noise of startX + i * step at index i, for every index of the array.
+     */
+    public void noise(double startX, double step, double factor, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            double x = startX + i * step;
+            double value = 0.0;
+            double currentPoint = startPoint;
+            while (currentPoint >= 1) {
+                value += smoothNoise(x / currentPoint) * currentPoint;
+                currentPoint /= 2.0;
+            }
+            out[i] = value * factor / startPoint;
+        }
+    }
+
+    /**
+     * Perlin noise along the x axis, interpolating between the two gradients of the unit
+     * segment containing x.
+     */
+    private double smoothNoise(double x) {
+        int X = (int) Math.floor(x) & (PERMUTATION_SIZE - 1); // FIND UNIT SEGMENT THAT CONTAINS POINT
+        x -= Math.floor(x);                                   // FIND RELATIVE X OF POINT IN SEGMENT
 
-    private double smoothNoise(double x, double y, double z) {
-        // Offset each coordinate by the seed value
-        x += this.seed;
-        y += this.seed;
-        x += this.seed;
-
-        int X = (int) Math.floor(x) & 255; // FIND UNIT CUBE THAT
-        int Y = (int) Math.floor(y) & 255; // CONTAINS POINT.
-        int Z = (int) Math.floor(z) & 255;
-
-        x -= Math.floor(x); // FIND RELATIVE X,Y,Z
-        y -= Math.floor(y); // OF POINT IN CUBE.
-        z -= Math.floor(z);
-
-        double u = fade(x); // COMPUTE FADE CURVES
-        double v = fade(y); // FOR EACH OF X,Y,Z.
-        double w = fade(z);
-
-        int A = p[X] + Y;
-        int AA = p[A] + Z;
-        int AB = p[A + 1] + Z; // HASH COORDINATES OF
-        int B = p[X + 1] + Y;
-        int BA = p[B] + Z;
-        int BB = p[B + 1] + Z; // THE 8 CUBE CORNERS,
-
-        return lerp(w, lerp(v, lerp(u, grad(p[AA], x, y, z),    // AND ADD
-                                grad(p[BA], x - 1, y, z)), // BLENDED
-                        lerp(u, grad(p[AB], x, y - 1, z),    // RESULTS
-                                grad(p[BB], x - 1, y - 1, z))),// FROM 8
-                lerp(v, lerp(u, grad(p[AA + 1], x, y, z - 1),    // CORNERS
-                                grad(p[BA + 1], x - 1, y, z - 1)), // OF CUBE
-                        lerp(u, grad(p[AB + 1], x, y - 1, z - 1),
-                                grad(p[BB + 1], x - 1, y - 1, z - 1))));
+        return lerp(fade(x), tables.leftGradients[X] * x, tables.rightGradients[X] * (x - 1));
     }
 
-    private double fade(double t) {
+    private static double fade(double t) {
         return t * t * t * (t * (t * 6 - 15) + 10);
     }
 
-    private double lerp(double t, double a, double b) {
+    private static double lerp(double t, double a, double b) {
         return a + t * (b - a);
     }
 
-    private double grad(int hash, double x, double y, double z) {
+    private static double grad(int hash, double x, double y, double z) {
         int h = hash & 15; // CONVERT LO 4 BITS OF HASH CODE
         double u = h < 8 ? x : y, // INTO 12 GRADIENT DIRECTIONS.
                 v = h < 4 ? y : h == 12 || h == 14 ? x : z;
@@ -0,0 +1,73 @@
+package pepse.util;
+
+import java.util.ArrayDeque;
+
+/**
+ * A bounded pool of reusable objects.
+ * Objects released to the pool are handed out again by acquire, instead of allocating new ones.
+ * The pool keeps at most its capacity of idle objects, dropping the rest for the garbage collector.
+ * All methods are synchronized, so objects may be acquired on generating threads and released on
+ * the game loop thread.
+ *
+ * @param <T> The type of the pooled objects.
+ * @author Noam Barzilay
+ */
+public class ObjectPool<T> {
+    // Idle objects, the most recently released first
+    private final ArrayDeque<T> idle = new ArrayDeque<>();
+    // Maximal number of idle objects kept
+    private final int capacity;
+    // Number of objects handed out again instead of allocated
+    private long reuses;
+
+    /**
+     * Constructs an ObjectPool object.
+     *
+     * @param capacity The maximal number of idle objects kept.
+     */
+    public ObjectPool(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes an idle object out of the pool.
+     *
+     * @return An idle object, which the caller must re-initialize, or null if the pool is empty.
+     */
+    public synchronized T acquire() {
+        T object = idle.pollFirst();
+        if (object != null) {
+            reuses++;
+        }
+        return object;
+    }
+
+    /**
+     * Returns an object that is no longer used to the pool.
+     *
+     * @param object The object to return, which must not be referenced by the game anymore.
+     */
+    public synchronized void release(T object) {
+        if (idle.size() < capacity) {
+            idle.addFirst(object);
+        }
+    }
+
+    /**
+     * Returns the number of idle objects in the pool.
+     *
+     * @return The number of idle objects.
+     */
+    public synchronized int size() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of objects handed out again instead of allocated.
+     *
+     * @return The number of reuses.
+     */
+    public synchronized long reuses() {
+        return reuses;
+    }
+}
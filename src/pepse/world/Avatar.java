@@ -1,6 +1,6 @@
 /**
  * This class represents an avatar GameObject in the game world.
- * It extends the GameObject class.
+ * It extends the WorldObject class, colliding with the ground, the trees and the fruits.
  * The avatar can move right left up and down.
  * Each movement has its own transition.
  * The avatar also has energy which can be gained and lost.
@@ -18,26 +18,38 @@ import danogl.gui.UserInputListener;
 import danogl.gui.rendering.AnimationRenderable;
 import danogl.util.Vector2;
 import pepse.Constants;
-import pepse.Observer;
+import pepse.EventBus;
+import pepse.EventType;
+import pepse.profiling.Profiler;
 
 import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Represents the avatar controlled by the player.
  */
-public class Avatar extends GameObject {
-    /** Current energy level of the avatar. */
-    private static float energy;
+public class Avatar extends WorldObject {
+    /** Energy level of the avatar. */
+    private final AvatarEnergy energy;
     /** User input listener for controlling the avatar. */
     private UserInputListener inputListener;
     /** Animation renderable for idle state. */
-    private static AnimationRenderable idleAnimationRenderable;
+    private final AnimationRenderable idleAnimationRenderable;
     /** Animation renderable for running state. */
-    private static AnimationRenderable runAnimationRenderable;
+    private final AnimationRenderable runAnimationRenderable;
     /** Animation renderable for jumping state. */
-    private static AnimationRenderable jumpAnimationRenderable;
-    /** Observer for tracking avatar's interactions with flora. */
-    private Observer floraObserver;
+    private final AnimationRenderable jumpAnimationRenderable;
+    /** Bus the avatar publishes its jumps, landings and energy changes on, if any. */
+    private EventBus eventBus;
+    /** Whether the avatar was in the air in the last update. */
+    private boolean airborne;
+    /** Index the avatar finds the objects it touches in, if any. */
+    private SpatialGrid spatialGrid;
+    /** Objects near the avatar, reused by every lookup in the spatial grid. */
+    private final List<GameObject> nearbyObjects = new ArrayList<>();
+    /** Profiler receiving the durations of the avatar's updates, if any. */
+    private Profiler profiler;
 
     /**
      * Constructs an Avatar object.
@@ -49,13 +61,15 @@ public class Avatar extends GameObject {
     public Avatar(Vector2 pos, UserInputListener inputListener, ImageReader imageReader,
                   GameObjectCollection gameObjectCollection){
         super(pos, Vector2.ONES.mult(Constants.AVATAR_SIZE),
-                imageReader.readImage("assets/idle_0.png", true));
+                imageReader.readImage("assets/idle_0.png", true), Constants.AVATAR_CATEGORY,
+                Constants.AVATAR_COLLISION_MASK, null);
 
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
         transform().setAccelerationY(Constants.GRAVITY);
         this.inputListener = inputListener;
         this.setTag("avatar");
-        energy = Constants.MAX_ENERGY;
+        energy = new AvatarEnergy(Constants.MAX_ENERGY, Constants.MIN_ENERGY,
+                Constants.MAX_ENERGY);
         // initialize animation renderables
         idleAnimationRenderable = new AnimationRenderable(Constants.idleImagePaths, imageReader,
                 true, Constants.TIME_BETWEEN_IMAGES);
@@ -71,6 +85,7 @@ public class Avatar extends GameObject {
      */
     @Override
     public void update(float deltaTime) {
+        long start = System.nanoTime();
         super.update(deltaTime);
         float xVel = 0;
         if(inputListener.isKeyPressed(KeyEvent.VK_LEFT)) {
@@ -79,11 +94,10 @@ public class Avatar extends GameObject {
         if(inputListener.isKeyPressed(KeyEvent.VK_RIGHT)) {
             xVel += Constants.VELOCITY_X;
         }
-        if (xVel != 0 && energy >= Constants.ENERGY_RUN_LOSS){
+        if (xVel != 0 && energy.getEnergy() >= Constants.ENERGY_RUN_LOSS){
             transform().setVelocityX(xVel);
             // if avatar is on the run, energy is loss
-            energy = Math.max(Constants.MIN_ENERGY, energy-Constants.ENERGY_RUN_LOSS);
-            AvatarEnergy.setEnergy(energy);
+            energy.add(-Constants.ENERGY_RUN_LOSS);
             // set changing animation
             renderer().setRenderable(runAnimationRenderable);
             renderer().setIsFlippedHorizontally(getVelocity().x() < 0);
@@ -92,24 +106,36 @@ public class Avatar extends GameObject {
             transform().setVelocityX(0);
         }
         if(inputListener.isKeyPressed(KeyEvent.VK_SPACE) && getVelocity().y() == 0) {
-            if (energy >= Constants.ENERGY_JUMP_LOSS) {
+            if (energy.getEnergy() >= Constants.ENERGY_JUMP_LOSS) {
                 transform().setVelocityY(Constants.VELOCITY_Y);
                 // if avatar is on the jump, energy is loss
-                energy = Math.max(Constants.MIN_ENERGY, energy - Constants.ENERGY_JUMP_LOSS);
-                AvatarEnergy.setEnergy(energy);
+                energy.add(-Constants.ENERGY_JUMP_LOSS);
                 // set changing animation
                 renderer().setRenderable(jumpAnimationRenderable);
-                // notify the observer that the avatar has jumped
-                floraObserver.update();
+                // notify the subscribers that the avatar has jumped
+                if (eventBus != null) {
+                    eventBus.publish(EventType.JUMP, energy.getPercent());
+                }
             }
         }
         // if avatar is idle, energy is regained
         if (xVel == 0 && getVelocity().y() == 0){
-            energy = Math.min(Constants.MAX_ENERGY, energy+Constants.ENERGY_GAIN);
-            AvatarEnergy.setEnergy(energy);
+            energy.add(Constants.ENERGY_GAIN);
             // set changing animation
             renderer().setRenderable(idleAnimationRenderable);
         }
+        // notify the subscribers that the avatar has landed
+        boolean grounded = getVelocity().y() == 0;
+        if (airborne && grounded && eventBus != null) {
+            eventBus.publish(EventType.LAND, getCenter().x());
+        }
+        airborne = !grounded;
+        if (spatialGrid != null) {
+            touchNearbyObjects();
+        }
+        if (profiler != null) {
+            profiler.record(Profiler.Section.AVATAR, start);
+        }
     }
 
     /**
@@ -117,28 +143,65 @@ public class Avatar extends GameObject {
      * @param valToAdd Value to add to the energy.
      */
     public void gainEnergy(float valToAdd){
-        energy = Math.min(Constants.MAX_ENERGY, energy + valToAdd);
-        AvatarEnergy.setEnergy(energy);
+        energy.add(valToAdd);
     }
 
     /**
-     * Determines whether the avatar should collide with the specified game object.
-     * @param other The game object to check collision with.
-     * @return True if the avatar should collide with the other game object, false otherwise.
+     * Returns the energy of the avatar.
+     * @return The energy of the avatar.
      */
-    @Override
-    public boolean shouldCollideWith(GameObject other) {
-        if (other.getTag().equals("fruit")){
-            return true;
-        }
-        return super.shouldCollideWith(other);
+    public AvatarEnergy energy(){
+        return energy;
+    }
+
+    /**
+     * Sets the bus the avatar publishes its jumps, landings and energy changes on.
+     * @param eventBus The event bus.
+     */
+    public void setEventBus(EventBus eventBus){
+        this.eventBus = eventBus;
+        energy.addListener(percent -> eventBus.publish(EventType.ENERGY_CHANGED, percent));
+    }
+
+    /**
+     * Sets the spatial grid the avatar looks up the objects it touches in, such as the fruits,
+     * which are found there instead of through the engine's collision detection.
+     * @param spatialGrid The spatial grid.
+     */
+    public void setSpatialGrid(SpatialGrid spatialGrid){
+        this.spatialGrid = spatialGrid;
+    }
+
+    /**
+     * Sets the profiler receiving the durations of the avatar's updates.
+     * @param profiler The profiler.
+     */
+    public void setProfiler(Profiler profiler){
+        this.profiler = profiler;
     }
 
     /**
-     * Sets the observer for the avatar.
-     * @param flora The observer to set.
+     * Hands a contact to every object of the spatial grid that the avatar overlaps and collides
+     * with. Only the cells under the avatar are looked up, however large the world.
      */
-    public void setObserver(Observer flora){
-        this.floraObserver = flora;
+    private void touchNearbyObjects(){
+        Vector2 topLeft = getTopLeftCorner();
+        Vector2 bottomRight = topLeft.add(getDimensions());
+        nearbyObjects.clear();
+        spatialGrid.query(topLeft.x(), topLeft.y(), bottomRight.x(), bottomRight.y(),
+                nearbyObjects);
+        for (GameObject gameObject : nearbyObjects) {
+            if (!(gameObject instanceof WorldObject)) {
+                continue;
+            }
+            WorldObject other = (WorldObject) gameObject;
+            Vector2 otherTopLeft = other.getTopLeftCorner();
+            Vector2 otherBottomRight = otherTopLeft.add(other.getDimensions());
+            if ((getCollisionMask() & other.getCollisionCategory()) != 0 &&
+                    otherTopLeft.x() < bottomRight.x() && topLeft.x() < otherBottomRight.x() &&
+                    otherTopLeft.y() < bottomRight.y() && topLeft.y() < otherBottomRight.y()) {
+                other.onContact(this);
+            }
+        }
     }
 }
@@ -1,27 +1,43 @@
-
 package pepse.world;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * This class manages the energy level of the avatar in the game world.
- * It provides methods to retrieve and update the avatar's energy level.
- * The avatar's energy level is used to determine its abilities and interactions in the game.
- * Energy can be gained or lost based on the avatar's actions.
- * This class helps maintain and track the avatar's energy throughout the game.
+ * This class manages the energy level of an avatar in the game world.
+ * The energy is kept within its minimum and maximum levels, and can be gained or lost based on
+ * the avatar's actions. Each avatar owns its energy, so several worlds can run side by side.
+ * Listeners are notified only when the integer energy percentage changes, not on every change of
+ * the energy itself.
  *
  * @author Noam Barzilay
  */
 public class AvatarEnergy {
-    // Static variable to store the avatar's energy level
-    private static float avatarEnergy;
+    // Number of percents in the whole energy range
+    private static final int FULL_PERCENT = 100;
+
+    // The energy levels the energy is kept between
+    private final float minEnergy;
+    private final float maxEnergy;
+    // The current energy level
+    private float energy;
+    // The current integer energy percentage
+    private int percent;
+    // Listeners notified when the energy percentage changes
+    private final List<EnergyListener> listeners = new ArrayList<>();
 
     /**
      * Constructs an AvatarEnergy object with the specified initial energy level.
-     * Initializes the avatar's energy level.
      *
-     * @param energy The initial energy level of the avatar.
+     * @param energy    The initial energy level of the avatar.
+     * @param minEnergy The minimum energy level of the avatar.
+     * @param maxEnergy The maximum energy level of the avatar.
      */
-    public AvatarEnergy(float energy) {
-        avatarEnergy = energy;
+    public AvatarEnergy(float energy, float minEnergy, float maxEnergy) {
+        this.minEnergy = minEnergy;
+        this.maxEnergy = maxEnergy;
+        this.energy = clamp(energy);
+        this.percent = percentOf(this.energy);
     }
 
     /**
@@ -29,16 +45,68 @@ public class AvatarEnergy {
      *
      * @return The current energy level of the avatar.
      */
-    public static float getEnergy() {
-        return avatarEnergy;
+    public float getEnergy() {
+        return energy;
+    }
+
+    /**
+     * Retrieves the current energy level of the avatar as an integer percentage.
+     *
+     * @return The current energy percentage, between 0 and 100.
+     */
+    public int getPercent() {
+        return percent;
     }
 
     /**
-     * Sets the energy level of the avatar to the specified value.
+     * Sets the energy level of the avatar, kept between its minimum and maximum levels.
+     * Notifies the listeners if the energy percentage changed.
      *
      * @param val The value to set as the avatar's energy level.
      */
-    public static void setEnergy(float val) {
-        avatarEnergy = val;
+    public void setEnergy(float val) {
+        energy = clamp(val);
+        int newPercent = percentOf(energy);
+        if (newPercent != percent) {
+            percent = newPercent;
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).onEnergyChanged(newPercent);
+            }
+        }
+    }
+
+    /**
+     * Adds to the energy level of the avatar, or subtracts from it if the value is negative.
+     *
+     * @param valToAdd The value to add to the avatar's energy level.
+     */
+    public void add(float valToAdd) {
+        setEnergy(energy + valToAdd);
+    }
+
+    /**
+     * Adds a listener notified when the energy percentage changes.
+     *
+     * @param listener The listener to add.
+     */
+    public void addListener(EnergyListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a listener. Does nothing if it was not added.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeListener(EnergyListener listener) {
+        listeners.remove(listener);
+    }
+
+    private float clamp(float val) {
+        return Math.max(minEnergy, Math.min(maxEnergy, val));
+    }
+
+    private int percentOf(float val) {
+        return (int) ((val - minEnergy) * FULL_PERCENT / (maxEnergy - minEnergy));
     }
 }
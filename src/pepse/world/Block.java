@@ -1,7 +1,6 @@
 
 package pepse.world;
 
-import danogl.GameObject;
 import danogl.components.GameObjectPhysics;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
@@ -9,15 +8,16 @@ import pepse.Constants;
 
 /**
  * This class represents a block GameObject in the game world.
- * It extends the GameObject class and provides additional functionality for blocks.
+ * It extends the WorldObject class and provides additional functionality for blocks.
  * Blocks are typically used to construct the game environment and serve as platforms.
- * Each block is static and immovable, preventing intersections with other objects.
+ * Each block is static and immovable, preventing intersections with other objects, and only
+ * the avatar collides with it.
  * Blocks can have various renderable representations, such as textures or colors.
  * This class facilitates the creation and management of block objects in the game world.
  *
  * @author Noam Barzilay
  */
-public class Block extends GameObject {
+public class Block extends WorldObject {
 
     /**
      * Constructs a Block object with the specified position and renderable component.
@@ -27,7 +27,20 @@ public class Block extends GameObject {
      * @param renderable    The renderable component for the block.
      */
     public Block(Vector2 topLeftCorner, Renderable renderable) {
-        super(topLeftCorner, Vector2.ONES.mult(Constants.BLOCK_SIZE), renderable);
+        this(topLeftCorner, Vector2.ONES.mult(Constants.BLOCK_SIZE), renderable);
+    }
+
+    /**
+     * Constructs a Block object with the specified position, dimensions and renderable component.
+     * Used for merged blocks that span several cells, such as a whole column of ground.
+     *
+     * @param topLeftCorner The top-left corner position of the block.
+     * @param dimensions    The dimensions of the block.
+     * @param renderable    The renderable component for the block.
+     */
+    public Block(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable) {
+        super(topLeftCorner, dimensions, renderable, Constants.GROUND_CATEGORY,
+                Constants.GROUND_COLLISION_MASK, null);
         // Prevent intersections and set mass to immovable
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
         physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
@@ -0,0 +1,53 @@
+package pepse.world;
+
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+
+import java.awt.*;
+
+/**
+ * This class renders a vertical column of equally sized, individually colored cells.
+ * It lets a single merged terrain collider keep the per-cell color variation of the ground,
+ * holding the colors as render-only data instead of as one GameObject per cell.
+ *
+ * @author Noam Barzilay
+ */
+public class CellColumnRenderable implements Renderable {
+    // Colors of the cells, from the top of the column to its bottom
+    private final Color[] cellColors;
+
+    /**
+     * Constructs a CellColumnRenderable object with the specified cell colors.
+     *
+     * @param cellColors The colors of the cells, from the top of the column to its bottom.
+     */
+    public CellColumnRenderable(Color[] cellColors) {
+        this.cellColors = cellColors;
+    }
+
+    /**
+     * Renders the cells of the column, splitting its dimensions evenly between them.
+     *
+     * @param g                       The graphics to render to.
+     * @param topLeftCorner           The top-left corner of the column on the screen.
+     * @param dimensions              The dimensions of the column on the screen.
+     * @param degreesCounterClockwise Ignored, ground columns are never rotated.
+     * @param isFlippedHorizontally   Ignored, ground columns are never flipped.
+     * @param isFlippedVertically     Ignored, ground columns are never flipped.
+     * @param opaqueness              Ignored, ground columns are always opaque.
+     */
+    @Override
+    public void render(Graphics2D g, Vector2 topLeftCorner, Vector2 dimensions,
+                       double degreesCounterClockwise, boolean isFlippedHorizontally,
+                       boolean isFlippedVertically, double opaqueness) {
+        int x = Math.round(topLeftCorner.x());
+        int width = Math.round(dimensions.x());
+        float cellHeight = dimensions.y() / cellColors.length;
+        for (int i = 0; i < cellColors.length; i++) {
+            int top = Math.round(topLeftCorner.y() + i * cellHeight);
+            int bottom = Math.round(topLeftCorner.y() + (i + 1) * cellHeight);
+            g.setColor(cellColors[i]);
+            g.fillRect(x, top, width, bottom - top);
+        }
+    }
+}
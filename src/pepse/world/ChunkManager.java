@@ -0,0 +1,511 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import pepse.Constants;
+import pepse.EventBus;
+import pepse.EventType;
+import pepse.profiling.Profiler;
+import pepse.save.WorldSave;
+import pepse.world.trees.Flora;
+import pepse.world.trees.Fruit;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * This class streams the world in fixed-width chunks around the camera.
+ * The x-axis is split into chunks of CHUNK_SIZE pixels. Chunks that come within
+ * CHUNK_LOAD_DISTANCE chunks of the screen are generated, and chunks that fall more than
+ * CHUNK_UNLOAD_DISTANCE chunks behind the screen are removed from the game object collection.
+ * This keeps the number of live GameObjects bounded by the screen width rather than by the
+ * distance travelled.
+ * The terrain and the flora of a chunk are generated in parallel on a fork-join pool, off the
+ * game loop thread. The generated objects are then handed to a SpawnQueue, which adds them to the
+ * game object collection over several frames, closest to the avatar first, except for chunks that
+ * are already on screen, which are completed at once.
+ * A chunk unloaded while it is still being generated is left to finish, and its flora is then
+ * released to the pools. A chunk whose generation fails is reported and loaded empty, and is
+ * generated again once it is unloaded and comes back into range.
+ * Loaded chunks that are out of view, beyond CULL_MARGIN from the screen, are parked: their
+ * objects are taken out of the collection and their flora is unregistered, so leaves stop swaying
+ * and fruit tasks stop running, and they are restored once the chunk comes back within the margin.
+ * This keeps the per-frame update and render work bounded by the screen width rather than by the
+ * number of loaded chunks.
+ * When the world is saved, the eaten fruits of a chunk are kept in memory as the chunk is
+ * unloaded, and restored from there, or from the save, as the chunk is streamed in again. Nothing
+ * is written to the save until it is requested, so the save never holds a state of the chunks
+ * other than the one of the last save.
+ *
+ * @author Noam Barzilay
+ */
+public class ChunkManager {
+    // The collection the chunk objects are added to
+    private final GameObjectCollection gameObjectCollection;
+    // Terrain used to create the ground of each chunk
+    private final Terrain terrain;
+    // Flora used to create the trees of each chunk
+    private final Flora flora;
+    // Half of the window width, the distance from the camera center to the screen edge
+    private final float halfWindowWidth;
+    // Pool the chunks are generated on
+    private final ForkJoinPool generationPool;
+    // Adds the generated objects to the collection within the per-frame budget
+    private final SpawnQueue spawnQueue;
+    // Currently loaded chunks by their index, including the ones still being generated
+    private final Map<Integer, Chunk> loadedChunks = new HashMap<>();
+    // Bus the loaded chunks are announced on, if any
+    private EventBus eventBus;
+    // Save the state of the chunks is kept in, if any
+    private WorldSave worldSave;
+    // Bitset of the eaten fruits of a chunk, reused for every chunk read or written
+    private final long[] eatenFruitWords = new long[Constants.SAVE_FRUIT_WORDS];
+    // Bitsets of the eaten fruits of the chunks unloaded since the last save, by chunk index
+    private final Map<Integer, long[]> unsavedChunkStates = new HashMap<>();
+    // Profiler receiving the durations of chunk generation, if any
+    private volatile Profiler profiler;
+    // Flora of the chunks unloaded in the last update, released to the pools in the next one,
+    // once the game object collection has applied their removal
+    private final List<GameObject> floraToRelease = new ArrayList<>();
+    // Flora of the chunks that were unloaded before their generation finished, or whose
+    // generation failed, handed over by the generating threads once it finishes
+    private final ConcurrentLinkedQueue<List<GameObject>> abandonedFlora =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * The GameObjects of a single chunk, with the layer of each of them.
+     * The objects are generated on a worker thread, and then queued in the spawn queue on the game
+     * loop thread.
+     */
+    private static class Chunk implements GameObjectSink {
+        // Generated objects and their layers
+        private final List<GameObject> objects = new ArrayList<>();
+        private int[] layers = new int[Constants.CHUNK_SIZE / Constants.BLOCK_SIZE];
+        // Completes once every object of the chunk is generated, and completes exceptionally
+        // once both the ground and the flora are done if either of them failed
+        private CompletableFuture<Void> generation;
+        // The batch the objects were queued in, null until the generation is done
+        private SpawnQueue.Ticket ticket;
+        // The flora objects among the generated objects, empty if the generation failed
+        private List<GameObject> floraObjects;
+        // The x-range of the chunk
+        private final float minX, maxX;
+        // Whether the objects of the chunk are parked out of the collection
+        private boolean parked;
+        // Whether the chunk was restored with a state, which its unload must then keep even if
+        // none of its fruits is eaten anymore
+        private boolean restored;
+
+        private Chunk(float minX, float maxX) {
+            this.minX = minX;
+            this.maxX = maxX;
+        }
+
+        @Override
+        public void add(GameObject gameObject, int layer) {
+            if (objects.size() == layers.length) {
+                layers = Arrays.copyOf(layers, layers.length * 2);
+            }
+            layers[objects.size()] = layer;
+            objects.add(gameObject);
+        }
+
+        private boolean isFailed() {
+            return generation.isCompletedExceptionally();
+        }
+    }
+
+    /**
+     * Constructs a ChunkManager object.
+     *
+     * @param gameObjectCollection The collection of GameObjects in the game world.
+     * @param terrain              The terrain used to create the ground of each chunk.
+     * @param flora                The flora used to create the trees of each chunk.
+     * @param spatialGrid          The index the chunk objects the avatar finds by contact are
+     *                             registered in once spawned.
+     * @param windowWidth          The width of the window.
+     */
+    public ChunkManager(GameObjectCollection gameObjectCollection, Terrain terrain, Flora flora,
+                        SpatialGrid spatialGrid, float windowWidth) {
+        this.gameObjectCollection = gameObjectCollection;
+        this.terrain = terrain;
+        this.flora = flora;
+        this.halfWindowWidth = windowWidth * 0.5f;
+        this.generationPool = new ForkJoinPool(
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        this.spawnQueue = new SpawnQueue(gameObjectCollection, spatialGrid,
+                Constants.SPAWN_OBJECTS_PER_FRAME,
+                Constants.SPAWN_MICROS_PER_FRAME, flora::isEaten);
+    }
+
+    /**
+     * Loads the chunks near the camera, unloads the chunks that are far behind it, and adds the
+     * generated objects to the game object collection within the per-frame budget.
+     *
+     * @param cameraCenterX The x-coordinate of the camera center.
+     * @param focusX        The x-coordinate of the avatar, the objects closest to it are added first.
+     */
+    public void update(float cameraCenterX, float focusX) {
+        int firstVisible = chunkIndexOf(cameraCenterX - halfWindowWidth);
+        int lastVisible = chunkIndexOf(cameraCenterX + halfWindowWidth);
+
+        // Recycle the flora unloaded in the last update, and the flora of abandoned generations
+        flora.release(floraToRelease);
+        floraToRelease.clear();
+        for (List<GameObject> floraObjects; (floraObjects = abandonedFlora.poll()) != null; ) {
+            flora.release(floraObjects);
+        }
+
+        // Unload chunks that are far enough from the screen
+        Iterator<Map.Entry<Integer, Chunk>> iterator = loadedChunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, Chunk> entry = iterator.next();
+            int index = entry.getKey();
+            if (index < firstVisible - Constants.CHUNK_UNLOAD_DISTANCE ||
+                    index > lastVisible + Constants.CHUNK_UNLOAD_DISTANCE) {
+                unloadChunk(entry.getValue());
+                iterator.remove();
+            }
+        }
+
+        // Start generating chunks that are close enough to the screen
+        for (int index = firstVisible - Constants.CHUNK_LOAD_DISTANCE;
+             index <= lastVisible + Constants.CHUNK_LOAD_DISTANCE; index++) {
+            if (!loadedChunks.containsKey(index)) {
+                loadedChunks.put(index, generateChunk(index));
+            }
+        }
+
+        // Chunks on screen must be generated, whatever the budget
+        for (int index = firstVisible; index <= lastVisible; index++) {
+            Chunk chunk = loadedChunks.get(index);
+            awaitGeneration(chunk);
+            queueObjects(chunk);
+        }
+
+        // Queue the objects of the other generated chunks
+        for (Chunk chunk : loadedChunks.values()) {
+            if (chunk.generation.isDone()) {
+                queueObjects(chunk);
+            }
+        }
+
+        // Park the chunks out of view and restore the ones back in view
+        cull(cameraCenterX);
+
+        // Complete the chunks on screen, and add the closest objects of the others
+        for (int index = firstVisible; index <= lastVisible; index++) {
+            spawnQueue.flush(loadedChunks.get(index).ticket);
+        }
+        spawnQueue.drain(focusX);
+    }
+
+    /**
+     * Sets the bus announcing every chunk whose generated objects are handed to the world.
+     *
+     * @param eventBus The event bus.
+     */
+    public void setEventBus(EventBus eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    /**
+     * Sets the save the state of the chunks is kept in. Chunks streamed in afterwards restore
+     * their saved state, and chunks unloaded afterwards keep theirs until the next save.
+     *
+     * @param worldSave The world save.
+     */
+    public void setWorldSave(WorldSave worldSave) {
+        this.worldSave = worldSave;
+    }
+
+    /**
+     * Writes the state of the chunks unloaded since the last save and of every loaded chunk to
+     * the world save.
+     *
+     * @throws IOException If the state of a chunk cannot be written.
+     */
+    public void save() throws IOException {
+        for (Map.Entry<Integer, long[]> entry : unsavedChunkStates.entrySet()) {
+            worldSave.writeEatenFruits(entry.getKey(), entry.getValue());
+        }
+        unsavedChunkStates.clear();
+        for (Chunk chunk : loadedChunks.values()) {
+            if (chunk.ticket != null && !chunk.isFailed()) {
+                collectEatenFruits(chunk, eatenFruitWords);
+                worldSave.writeEatenFruits(chunkIndexOf(chunk.minX), eatenFruitWords);
+                chunk.restored = true;
+            }
+        }
+    }
+
+    /**
+     * Sets the profiler receiving the durations of generating the terrain and the flora of each
+     * chunk.
+     *
+     * @param profiler The profiler.
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * Returns the number of currently loaded chunks.
+     *
+     * @return The number of loaded chunks.
+     */
+    public int loadedChunkCount() {
+        return loadedChunks.size();
+    }
+
+    /**
+     * Returns the number of loaded chunks whose objects are parked out of the collection.
+     *
+     * @return The number of parked chunks.
+     */
+    public int parkedChunkCount() {
+        int count = 0;
+        for (Chunk chunk : loadedChunks.values()) {
+            if (chunk.parked) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the index of the chunk containing the given x-coordinate.
+     *
+     * @param x The x-coordinate.
+     * @return The index of the chunk containing x.
+     */
+    public static int chunkIndexOf(float x) {
+        return (int) Math.floor(x / Constants.CHUNK_SIZE);
+    }
+
+    /**
+     * Starts generating the ground and the flora of a chunk on the generation pool.
+     * The terrain and the flora of the chunk are generated in parallel. If either fails, the
+     * failure is reported once both are done, and the flora taken from the pools is abandoned.
+     *
+     * @param index The index of the chunk.
+     * @return The chunk, whose objects are ready once its generation completes.
+     */
+    private Chunk generateChunk(int index) {
+        int minX = index * Constants.CHUNK_SIZE;
+        int maxX = minX + Constants.CHUNK_SIZE;
+        Chunk chunk = new Chunk(minX, maxX);
+        Chunk floraChunk = new Chunk(minX, maxX);
+        CompletableFuture<Void> ground = CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            for (Block block : terrain.createInRange(minX, maxX)) {
+                chunk.add(block, Constants.GROUND_LAYER);
+            }
+            if (terrain.getCollisionMode() == Terrain.CollisionMode.BAKED_TEXTURE) {
+                GameObject texture = terrain.createTextureInRange(minX, maxX);
+                if (texture != null) {
+                    chunk.add(texture, Constants.GROUND_TEXTURE_LAYER);
+                }
+            }
+            recordGeneration(start);
+        }, generationPool);
+        CompletableFuture<Void> trees = CompletableFuture.runAsync(() -> {
+            long start = System.nanoTime();
+            flora.createInRange(minX, maxX, floraChunk);
+            recordGeneration(start);
+        }, generationPool);
+        // Waits for both, even if one fails, so no worker still fills the chunk once it is done
+        chunk.generation = CompletableFuture.allOf(ground, trees).thenRun(() -> {
+            // The ground goes first, so the trees are never handed off before the ground under them
+            chunk.floraObjects = floraChunk.objects;
+            for (int i = 0; i < floraChunk.objects.size(); i++) {
+                chunk.add(floraChunk.objects.get(i), floraChunk.layers[i]);
+            }
+        });
+        chunk.generation.whenComplete((done, failure) -> {
+            if (failure != null) {
+                System.err.println("Could not generate chunk " + index + ": " + failure);
+                abandonedFlora.add(floraChunk.objects);
+            }
+        });
+        return chunk;
+    }
+
+    /**
+     * Waits until the generation of a chunk is done, whether it succeeded or failed. A failure
+     * is reported by the generation itself.
+     *
+     * @param chunk The chunk.
+     */
+    private static void awaitGeneration(Chunk chunk) {
+        try {
+            chunk.generation.join();
+        } catch (CompletionException e) {
+            // The chunk is loaded empty
+        }
+    }
+
+    private void recordGeneration(long startNanos) {
+        Profiler currentProfiler = profiler;
+        if (currentProfiler != null) {
+            currentProfiler.record(Profiler.Section.GENERATION, startNanos);
+        }
+    }
+
+    /**
+     * Queues the generated objects of a chunk in the spawn queue and registers its flora, unless
+     * they are already queued. A chunk whose generation failed gets an empty batch.
+     *
+     * @param chunk The chunk, whose generation is done.
+     * @return The batch the objects of the chunk are queued in.
+     */
+    private SpawnQueue.Ticket queueObjects(Chunk chunk) {
+        if (chunk.ticket == null && chunk.isFailed()) {
+            chunk.floraObjects = List.of();
+            chunk.ticket = new SpawnQueue.Ticket();
+        } else if (chunk.ticket == null) {
+            if (worldSave != null) {
+                readChunkState(chunk);
+            }
+            chunk.ticket = new SpawnQueue.Ticket();
+            for (int i = 0; i < chunk.objects.size(); i++) {
+                spawnQueue.enqueue(chunk.objects.get(i), chunk.layers[i], chunk.ticket);
+            }
+            flora.register(chunk.floraObjects);
+            if (eventBus != null) {
+                eventBus.publish(EventType.CHUNK_LOADED, chunkIndexOf(chunk.minX));
+            }
+        }
+        return chunk.ticket;
+    }
+
+    /**
+     * Parks the queued chunks that left the cull margin around the screen by more than the
+     * hysteresis, and unparks the ones that are back within the margin. The hysteresis keeps a
+     * chunk at the edge of the margin from being parked and unparked on alternate frames.
+     *
+     * @param cameraCenterX The x-coordinate of the camera center.
+     */
+    private void cull(float cameraCenterX) {
+        float activeMinX = cameraCenterX - halfWindowWidth - Constants.CULL_MARGIN;
+        float activeMaxX = cameraCenterX + halfWindowWidth + Constants.CULL_MARGIN;
+        for (Chunk chunk : loadedChunks.values()) {
+            if (chunk.ticket == null) {
+                continue;
+            }
+            if (chunk.parked) {
+                if (chunk.maxX > activeMinX && chunk.minX < activeMaxX) {
+                    spawnQueue.unpark(chunk.ticket);
+                    flora.register(chunk.floraObjects);
+                    chunk.parked = false;
+                }
+            } else if (chunk.maxX <= activeMinX - Constants.CULL_HYSTERESIS ||
+                    chunk.minX >= activeMaxX + Constants.CULL_HYSTERESIS) {
+                spawnQueue.park(chunk.ticket);
+                flora.unregister(chunk.floraObjects);
+                chunk.parked = true;
+            }
+        }
+    }
+
+    /**
+     * Removes the objects of a chunk that were added to the game object collection, and drops
+     * the chunk if it is still being generated or queued. The flora of the chunk is released to
+     * the pools in the next update, or in the first update after its generation finishes.
+     *
+     * @param chunk The chunk to remove.
+     */
+    private void unloadChunk(Chunk chunk) {
+        if (chunk.ticket == null) {
+            // The flora of a failed generation is abandoned by the generation itself
+            chunk.generation.thenRun(() -> abandonedFlora.add(chunk.floraObjects));
+        } else {
+            if (worldSave != null && !chunk.isFailed()) {
+                keepChunkState(chunk);
+            }
+            spawnQueue.cancel(chunk.ticket);
+            if (!chunk.parked) {
+                flora.unregister(chunk.floraObjects);
+            }
+            floraToRelease.addAll(chunk.floraObjects);
+        }
+    }
+
+    /**
+     * Marks the fruits of a chunk that were eaten as eaten, before the chunk is queued, so they
+     * only enter the world once they respawn. The state kept when the chunk was last unloaded is
+     * used if there is one, and the saved state otherwise.
+     *
+     * @param chunk The chunk, whose generation is done.
+     */
+    private void readChunkState(Chunk chunk) {
+        long[] words = unsavedChunkStates.remove(chunkIndexOf(chunk.minX));
+        if (words == null) {
+            try {
+                if (!worldSave.readEatenFruits(chunkIndexOf(chunk.minX), eatenFruitWords)) {
+                    return;
+                }
+            } catch (IOException e) {
+                System.err.println("Could not load chunk: " + e.getMessage());
+                return;
+            }
+            words = eatenFruitWords;
+        }
+        chunk.restored = true;
+        int fruitIndex = 0;
+        for (GameObject gameObject : chunk.floraObjects) {
+            if (gameObject instanceof Fruit) {
+                if (fruitIndex < Constants.MAX_FRUITS_PER_CHUNK &&
+                        (words[fruitIndex / Long.SIZE] & (1L << fruitIndex)) != 0) {
+                    flora.markEaten((Fruit) gameObject);
+                }
+                fruitIndex++;
+            }
+        }
+    }
+
+    /**
+     * Keeps the eaten fruits of a chunk that is unloaded until the next save. A chunk with no
+     * eaten fruits is only kept if it was restored with a state, which the save must clear.
+     *
+     * @param chunk The chunk, whose objects are queued.
+     */
+    private void keepChunkState(Chunk chunk) {
+        long[] words = new long[Constants.SAVE_FRUIT_WORDS];
+        if (collectEatenFruits(chunk, words) || chunk.restored) {
+            unsavedChunkStates.put(chunkIndexOf(chunk.minX), words);
+        }
+    }
+
+    /**
+     * Fills the bitset of the eaten fruits of a chunk, by their order in the chunk.
+     *
+     * @param chunk The chunk, whose objects are queued.
+     * @param words Receives the bitset of the eaten fruits.
+     * @return Whether any fruit of the chunk is eaten.
+     */
+    private boolean collectEatenFruits(Chunk chunk, long[] words) {
+        Arrays.fill(words, 0);
+        boolean anyEaten = false;
+        int fruitIndex = 0;
+        for (GameObject gameObject : chunk.floraObjects) {
+            if (gameObject instanceof Fruit) {
+                if (fruitIndex < Constants.MAX_FRUITS_PER_CHUNK && flora.isEaten(gameObject)) {
+                    words[fruitIndex / Long.SIZE] |= 1L << fruitIndex;
+                    anyEaten = true;
+                }
+                fruitIndex++;
+            }
+        }
+        return anyEaten;
+    }
+}
@@ -0,0 +1,18 @@
+package pepse.world;
+
+/**
+ * The EnergyListener interface is notified when the energy percentage of an avatar changes.
+ * It receives the new integer percentage only, so listeners that present the energy react to the
+ * changes they can show, rather than to every fractional change of the energy.
+ *
+ * @author Noam Barzilay
+ */
+@FunctionalInterface
+public interface EnergyListener {
+    /**
+     * Called when the integer energy percentage changes.
+     *
+     * @param percent The new energy percentage, between 0 and 100.
+     */
+    void onEnergyChanged(int percent);
+}
@@ -0,0 +1,22 @@
+package pepse.world;
+
+import danogl.GameObject;
+
+/**
+ * The GameObjectSink interface receives the GameObjects created by the world generators,
+ * together with the layer each of them belongs to.
+ * It decouples generating objects from adding them to the game object collection, so the
+ * generators can record, defer or batch the additions instead of performing them directly.
+ *
+ * @author Noam Barzilay
+ */
+@FunctionalInterface
+public interface GameObjectSink {
+    /**
+     * Receives a generated GameObject.
+     *
+     * @param gameObject The generated GameObject.
+     * @param layer      The layer the GameObject belongs to.
+     */
+    void add(GameObject gameObject, int layer);
+}
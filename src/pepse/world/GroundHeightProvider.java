@@ -0,0 +1,35 @@
+package pepse.world;
+
+import pepse.Constants;
+
+/**
+ * The GroundHeightProvider interface provides the height of the ground at a given x-coordinate.
+ * It works with primitive floats, so querying the ground height never boxes its argument or its
+ * result, and it can fill the heights of a whole span of columns in a single call.
+ *
+ * @author Noam Barzilay
+ */
+@FunctionalInterface
+public interface GroundHeightProvider {
+    /**
+     * Returns the height of the ground at the specified x-coordinate.
+     *
+     * @param x The x-coordinate at which to get the ground height.
+     * @return The ground height at the specified x-coordinate.
+     */
+    float groundHeightAt(float x);
+
+    /**
+     * Fills the ground heights of the block columns within the specified x-range.
+     * out[i] receives the height at startX + i * BLOCK_SIZE, for every column before endX.
+     *
+     * @param startX The x-coordinate of the first column, a multiple of block size.
+     * @param endX   The x-coordinate at which the span ends (exclusive).
+     * @param out    The array receiving the heights, at least as long as the number of columns.
+     */
+    default void fillHeights(int startX, int endX, float[] out) {
+        for (int i = 0, x = startX; x < endX; i++, x += Constants.BLOCK_SIZE) {
+            out[i] = groundHeightAt(x);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package pepse.world;
+
+import pepse.Constants;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class memoizes the ground heights of block columns.
+ * Heights are stored in primitive float pages, each holding the columns of one chunk, and the
+ * least recently used pages are evicted once the cache exceeds its memory cap. The cache counts
+ * its hits and misses, so its effectiveness can be measured.
+ * All methods are synchronized, so a single cache can be shared by several generating threads.
+ *
+ * @author Noam Barzilay
+ */
+public class HeightmapCache {
+    // Number of bytes taken by a single cached height
+    private static final int BYTES_PER_HEIGHT = Float.BYTES;
+
+    // Computes the heights of the columns that are not cached
+    private final GroundHeightProvider source;
+    // Number of columns in each page
+    private final int pageColumns;
+    // Maximal number of pages kept before the least recently used ones are evicted
+    private final int maxPages;
+    // Cached pages by their index, in least recently used order
+    private final LinkedHashMap<Integer, float[]> pages;
+    // The most recently used page, looked up without touching the map
+    private int lastPageIndex;
+    private float[] lastPage;
+    // Number of lookups answered from the cache
+    private long hits;
+    // Number of lookups that had to compute their page
+    private long misses;
+
+    /**
+     * Constructs a HeightmapCache object with pages of one chunk each.
+     *
+     * @param source   Computes the heights of the columns that are not cached.
+     * @param maxBytes The memory cap of the cached heights, in bytes.
+     */
+    public HeightmapCache(GroundHeightProvider source, long maxBytes) {
+        this(source, Constants.CHUNK_SIZE / Constants.BLOCK_SIZE, maxBytes);
+    }
+
+    /**
+     * Constructs a HeightmapCache object.
+     *
+     * @param source      Computes the heights of the columns that are not cached.
+     * @param pageColumns The number of columns in each page.
+     * @param maxBytes    The memory cap of the cached heights, in bytes.
+     */
+    public HeightmapCache(GroundHeightProvider source, int pageColumns, long maxBytes) {
+        this.source = source;
+        this.pageColumns = pageColumns;
+        this.maxPages = (int) Math.max(1, maxBytes / ((long) pageColumns * BYTES_PER_HEIGHT));
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, float[]> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Returns the ground height of the specified block column.
+     *
+     * @param column The index of the column, its x-coordinate divided by block size.
+     * @return The ground height of the column.
+     */
+    public synchronized float heightAt(int column) {
+        int pageIndex = Math.floorDiv(column, pageColumns);
+        return page(pageIndex)[column - pageIndex * pageColumns];
+    }
+
+    /**
+     * Fills the ground heights of consecutive block columns.
+     *
+     * @param firstColumn The index of the first column.
+     * @param out         The array receiving the heights.
+     * @param count       The number of columns to fill.
+     */
+    public synchronized void fillHeights(int firstColumn, float[] out, int count) {
+        int filled = 0;
+        while (filled < count) {
+            int column = firstColumn + filled;
+            int pageIndex = Math.floorDiv(column, pageColumns);
+            int offset = column - pageIndex * pageColumns;
+            int length = Math.min(count - filled, pageColumns - offset);
+            System.arraycopy(page(pageIndex), offset, out, filled, length);
+            filled += length;
+        }
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to compute their page.
+     *
+     * @return The number of cache misses.
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of pages currently cached.
+     *
+     * @return The number of cached pages.
+     */
+    public synchronized int pageCount() {
+        return pages.size();
+    }
+
+    /**
+     * Returns the page with the specified index, computing and caching it if needed.
+     * Counts a hit or a miss for the lookup.
+     *
+     * @param pageIndex The index of the page.
+     * @return The heights of the columns of the page.
+     */
+    private float[] page(int pageIndex) {
+        if (lastPage != null && lastPageIndex == pageIndex) {
+            hits++;
+            return lastPage;
+        }
+        float[] page = pages.get(pageIndex);
+        if (page == null) {
+            misses++;
+            page = new float[pageColumns];
+            int startX = pageIndex * pageColumns * Constants.BLOCK_SIZE;
+            source.fillHeights(startX, startX + pageColumns * Constants.BLOCK_SIZE, page);
+            pages.put(pageIndex, page);
+        } else {
+            hits++;
+        }
+        lastPageIndex = pageIndex;
+        lastPage = page;
+        return page;
+    }
+}
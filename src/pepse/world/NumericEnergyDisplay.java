@@ -1,9 +1,9 @@
-
 package pepse.world;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
 import danogl.collisions.Layer;
+import danogl.components.CoordinateSpace;
 import danogl.gui.rendering.TextRenderable;
 import danogl.util.Vector2;
 
@@ -13,44 +13,50 @@ import java.awt.*;
  * This class represents a numeric energy display GameObject in the game world.
  * It extends the GameObject class and provides functionality for displaying the avatar's
  * energy level numerically. The display shows the current energy level as a percentage.
- * The displayed value updates dynamically based on changes in the avatar's energy.
- * This class facilitates the creation and management of numeric energy display objects in the game UI.
+ * The displayed text is replaced only when the energy percentage changes, with one of the
+ * precomputed strings of the 101 possible percentages, so no string is built while playing.
  *
  * @author Noam Barzilay
  */
 public class NumericEnergyDisplay extends GameObject {
+    // The text of every possible energy percentage, by percentage
+    private static final String[] PERCENT_STRINGS = new String[101];
+
+    static {
+        for (int percent = 0; percent < PERCENT_STRINGS.length; percent++) {
+            PERCENT_STRINGS[percent] = percent + "%";
+        }
+    }
+
     // Text renderable component for displaying the numeric energy value
-    private TextRenderable textRenderable;
+    private final TextRenderable textRenderable;
 
     /**
      * Constructs a NumericEnergyDisplay object with the specified parameters.
-     * Initializes the numeric energy display and adds it to the game UI.
+     * Initializes the numeric energy display, adds it to the game UI, and listens to the changes
+     * of the avatar's energy.
      *
-     * @param topLeftCorner         The top-left corner position of the display.
-     * @param dimensions            The dimensions of the display.
+     * @param topLeftCorner        The top-left corner position of the display.
+     * @param dimensions           The dimensions of the display.
      * @param gameObjectCollection The collection of GameObjects in the game world.
+     * @param avatarEnergy         The energy of the avatar to display.
      */
     public NumericEnergyDisplay(Vector2 topLeftCorner, Vector2 dimensions,
-                                GameObjectCollection gameObjectCollection) {
+                                GameObjectCollection gameObjectCollection,
+                                AvatarEnergy avatarEnergy) {
         super(topLeftCorner, dimensions, null);
         // Initialize text renderable with current energy level as string
-        textRenderable = new TextRenderable((int) AvatarEnergy.getEnergy() + "%");
+        textRenderable = new TextRenderable(PERCENT_STRINGS[avatarEnergy.getPercent()]);
         textRenderable.setColor(Color.BLACK);
         // Create a GameObject with text renderable and add it to the UI layer
         GameObject energyNum = new GameObject(topLeftCorner, dimensions, textRenderable);
+        energyNum.setCoordinateSpace(CoordinateSpace.CAMERA_COORDINATES);
         gameObjectCollection.addGameObject(energyNum, Layer.UI);
+        // Replace the text only when the displayed percentage changes
+        avatarEnergy.addListener(this::showPercent);
     }
 
-    /**
-     * Updates the numeric energy display with the current energy level.
-     * Updates the displayed value dynamically based on changes in the avatar's energy.
-     *
-     * @param deltaTime The time elapsed since the last update.
-     */
-    @Override
-    public void update(float deltaTime) {
-        super.update(deltaTime);
-        // Update the text renderable with the current energy level as string
-        textRenderable.setString((int) AvatarEnergy.getEnergy() + "%");
+    private void showPercent(int percent) {
+        textRenderable.setString(PERCENT_STRINGS[percent]);
     }
 }
@@ -0,0 +1,305 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+import pepse.Constants;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * This class indexes GameObjects in a uniform grid of block-sized cells, to answer "what is near
+ * this point" without iterating the whole game object collection.
+ * Every object is stored in each cell its bounding box overlaps. Cells are kept in an
+ * open-addressing hash table keyed by the primitive long packing of their column and row, so
+ * neither insertion nor lookup boxes coordinates. Inserting, moving and removing an object cost
+ * O(cells it overlaps), and a rectangle query costs O(cells in the rectangle + objects in them).
+ * The grid is not thread-safe, and is meant to be used from the game loop thread only.
+ *
+ * @author Noam Barzilay
+ */
+public class SpatialGrid {
+    // Initial capacity of the cell table, a power of two
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    // Initial capacity of a cell's object array
+    private static final int INITIAL_CELL_CAPACITY = 4;
+    // Maximal ratio of used slots in the cell table before it grows
+    private static final float MAX_LOAD = 0.5f;
+
+    // Size of a cell along each axis
+    private final float cellSize;
+    // Cell keys and cells of the table, an empty slot holds a null cell
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private Cell[] cells = new Cell[INITIAL_CAPACITY];
+    // Number of cells in the table
+    private int cellCount;
+    // Entries of the indexed objects
+    private final IdentityHashMap<GameObject, Entry> entries = new IdentityHashMap<>();
+    // Incremented by every query, to report each object once even if it spans several cells
+    private int queryStamp;
+
+    /**
+     * The cells an indexed object overlaps.
+     */
+    private static final class Entry {
+        private final GameObject gameObject;
+        private int minColumn, minRow, maxColumn, maxRow;
+        // The stamp of the last query that reported the object
+        private int stamp;
+
+        private Entry(GameObject gameObject) {
+            this.gameObject = gameObject;
+        }
+    }
+
+    /**
+     * The entries of the objects overlapping a single cell.
+     */
+    private static final class Cell {
+        private Entry[] entries = new Entry[INITIAL_CELL_CAPACITY];
+        private int size;
+
+        private void add(Entry entry) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        private void remove(Entry entry) {
+            for (int i = 0; i < size; i++) {
+                if (entries[i] == entry) {
+                    entries[i] = entries[--size];
+                    entries[size] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructs a SpatialGrid object with block-sized cells.
+     */
+    public SpatialGrid() {
+        this(Constants.BLOCK_SIZE);
+    }
+
+    /**
+     * Constructs a SpatialGrid object.
+     *
+     * @param cellSize The size of a cell along each axis.
+     */
+    public SpatialGrid(float cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Indexes an object by its current bounding box. Does nothing if it is already indexed.
+     *
+     * @param gameObject The object to index.
+     */
+    public void insert(GameObject gameObject) {
+        if (entries.containsKey(gameObject)) {
+            return;
+        }
+        Entry entry = new Entry(gameObject);
+        entries.put(gameObject, entry);
+        setBounds(entry);
+        forEachCell(entry, true);
+    }
+
+    /**
+     * Re-indexes an object whose bounding box may have changed. Only touches the grid if the
+     * object moved to different cells.
+     *
+     * @param gameObject The indexed object.
+     */
+    public void update(GameObject gameObject) {
+        Entry entry = entries.get(gameObject);
+        if (entry == null) {
+            return;
+        }
+        Vector2 topLeft = gameObject.getTopLeftCorner();
+        Vector2 dimensions = gameObject.getDimensions();
+        int minColumn = cellOf(topLeft.x());
+        int minRow = cellOf(topLeft.y());
+        if (entry.minColumn == minColumn && entry.minRow == minRow &&
+                entry.maxColumn == lastCellOf(topLeft.x() + dimensions.x(), minColumn) &&
+                entry.maxRow == lastCellOf(topLeft.y() + dimensions.y(), minRow)) {
+            return;
+        }
+        forEachCell(entry, false);
+        setBounds(entry);
+        forEachCell(entry, true);
+    }
+
+    /**
+     * Removes an object from the index. Does nothing if it is not indexed.
+     *
+     * @param gameObject The object to remove.
+     */
+    public void remove(GameObject gameObject) {
+        Entry entry = entries.remove(gameObject);
+        if (entry != null) {
+            forEachCell(entry, false);
+        }
+    }
+
+    /**
+     * Collects every indexed object whose cells overlap the given rectangle. Each object is
+     * collected once, even if it overlaps several cells of the rectangle.
+     *
+     * @param minX The left edge of the rectangle.
+     * @param minY The top edge of the rectangle.
+     * @param maxX The right edge of the rectangle.
+     * @param maxY The bottom edge of the rectangle.
+     * @param out  The list the objects are appended to.
+     */
+    public void query(float minX, float minY, float maxX, float maxY, List<GameObject> out) {
+        int stamp = ++queryStamp;
+        int maxColumn = cellOf(maxX);
+        int maxRow = cellOf(maxY);
+        for (int column = cellOf(minX); column <= maxColumn; column++) {
+            for (int row = cellOf(minY); row <= maxRow; row++) {
+                Cell cell = cells[find(key(column, row))];
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    Entry entry = cell.entries[i];
+                    if (entry.stamp != stamp) {
+                        entry.stamp = stamp;
+                        out.add(entry.gameObject);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of indexed objects.
+     *
+     * @return The number of indexed objects.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of non-empty cells.
+     *
+     * @return The number of non-empty cells.
+     */
+    public int cellCount() {
+        return cellCount;
+    }
+
+    private void setBounds(Entry entry) {
+        Vector2 topLeft = entry.gameObject.getTopLeftCorner();
+        Vector2 dimensions = entry.gameObject.getDimensions();
+        entry.minColumn = cellOf(topLeft.x());
+        entry.minRow = cellOf(topLeft.y());
+        entry.maxColumn = lastCellOf(topLeft.x() + dimensions.x(), entry.minColumn);
+        entry.maxRow = lastCellOf(topLeft.y() + dimensions.y(), entry.minRow);
+    }
+
+    /**
+     * Adds the entry to, or removes it from, every cell within its bounds.
+     */
+    private void forEachCell(Entry entry, boolean add) {
+        for (int column = entry.minColumn; column <= entry.maxColumn; column++) {
+            for (int row = entry.minRow; row <= entry.maxRow; row++) {
+                long key = key(column, row);
+                int slot = find(key);
+                Cell cell = cells[slot];
+                if (add) {
+                    if (cell == null) {
+                        cell = new Cell();
+                        keys[slot] = key;
+                        cells[slot] = cell;
+                        if (++cellCount > keys.length * MAX_LOAD) {
+                            grow();
+                        }
+                    }
+                    cell.add(entry);
+                } else if (cell != null) {
+                    cell.remove(entry);
+                    if (cell.size == 0) {
+                        deleteSlot(slot);
+                    }
+                }
+            }
+        }
+    }
+
+    private int cellOf(float coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    /**
+     * Returns the last cell covered by a box ending at the given edge, so a box ending exactly on
+     * a cell boundary does not spill into the next cell.
+     */
+    private int lastCellOf(float edge, int firstCell) {
+        return Math.max(firstCell, (int) Math.ceil(edge / cellSize) - 1);
+    }
+
+    private static long key(int column, int row) {
+        return ((long) column << 32) | (row & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * Returns the slot holding the given key, or the empty slot it would be inserted at.
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (cells[slot] != null && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Empties a slot, shifting back the entries of its probe sequence so lookups never stop
+     * early at the hole.
+     */
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        cells[slot] = null;
+        cellCount--;
+        int hole = slot;
+        int next = (slot + 1) & mask;
+        while (cells[next] != null) {
+            int home = hash(keys[next]) & mask;
+            // Move the entry into the hole unless its home lies cyclically within (hole, next]
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                cells[hole] = cells[next];
+                cells[next] = null;
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        Cell[] oldCells = cells;
+        keys = new long[oldKeys.length * 2];
+        cells = new Cell[oldCells.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCells[i] != null) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                cells[slot] = oldCells[i];
+            }
+        }
+    }
+}
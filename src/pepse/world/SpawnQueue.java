@@ -0,0 +1,269 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.collisions.GameObjectCollection;
+import pepse.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * This class defers adding generated GameObjects to the game object collection.
+ * Objects are queued together with the Ticket of the batch they were generated in, and every frame
+ * the queue adds a limited number of them, or as many as fit in a limited time, starting with the
+ * ones closest to the focus (the avatar). This spreads the cost of spawning new content over
+ * several frames instead of paying for it all in the frame it is generated in.
+ * Objects of the SPATIAL_GRID_CATEGORIES are indexed in the spatial grid when they are added to
+ * the collection, and removed from it when their batch is cancelled, so the grid always matches
+ * the spawned world.
+ * A batch can also be parked while it is out of view: its spawned objects are taken out of the
+ * collection, so they are neither updated nor rendered, and its queued objects wait, until the
+ * batch is unparked. Parked objects stay indexed in the grid, as they are still part of the world.
+ * Objects that are hidden when they are spawned or unparked, such as eaten fruits, are indexed but
+ * not added to the collection, their owner adds them once they are back.
+ *
+ * @author Noam Barzilay
+ */
+public class SpawnQueue {
+    // Distance the focus may move before the queued objects are prioritized again
+    private static final float REPRIORITIZE_DISTANCE = Constants.CHUNK_SIZE * 0.5f;
+    // Number of nanoseconds in a microsecond
+    private static final long NANOS_PER_MICRO = 1000;
+
+    // The collection the objects are added to
+    private final GameObjectCollection gameObjectCollection;
+    // Index of the spawned objects of the SPATIAL_GRID_CATEGORIES
+    private final SpatialGrid spatialGrid;
+    // Maximal number of objects added per frame
+    private final int maxObjectsPerFrame;
+    // Maximal time spent adding objects per frame, in nanoseconds
+    private final long maxNanosPerFrame;
+    // Tells the objects that are out of the collection for now
+    private final Predicate<GameObject> isHidden;
+    // Queued objects, closest to the focus first
+    private PriorityQueue<Entry> entries = new PriorityQueue<>(SpawnQueue::compare);
+    // The focus the queued objects were last prioritized by
+    private float prioritizedFocusX;
+
+    /**
+     * A batch of queued objects, which can be flushed or cancelled as a whole.
+     */
+    public static final class Ticket {
+        // Entries of the batch, in the order they were queued
+        private final List<Entry> entries = new ArrayList<>();
+        // Whether the batch was cancelled
+        private boolean cancelled;
+        // Whether the batch is parked out of the collection
+        private boolean parked;
+    }
+
+    /**
+     * A single queued object.
+     */
+    private static final class Entry {
+        private final GameObject gameObject;
+        private final int layer;
+        private final Ticket ticket;
+        // Distance from the focus, the lower the sooner the object is added
+        private float priority;
+        // Whether the object was added to the collection
+        private boolean spawned;
+        // Whether the entry is in the priority queue
+        private boolean queued;
+
+        private Entry(GameObject gameObject, int layer, Ticket ticket) {
+            this.gameObject = gameObject;
+            this.layer = layer;
+            this.ticket = ticket;
+        }
+    }
+
+    /**
+     * Constructs a SpawnQueue object.
+     *
+     * @param gameObjectCollection The collection the objects are added to.
+     * @param spatialGrid          The index the spawned objects of the SPATIAL_GRID_CATEGORIES
+     *                             are registered in.
+     * @param maxObjectsPerFrame   The maximal number of objects added per frame.
+     * @param maxMicrosPerFrame    The maximal time spent adding objects per frame, in microseconds.
+     * @param isHidden             Tells the objects that are out of the collection for now.
+     */
+    public SpawnQueue(GameObjectCollection gameObjectCollection, SpatialGrid spatialGrid,
+                      int maxObjectsPerFrame, long maxMicrosPerFrame,
+                      Predicate<GameObject> isHidden) {
+        this.gameObjectCollection = gameObjectCollection;
+        this.spatialGrid = spatialGrid;
+        this.maxObjectsPerFrame = maxObjectsPerFrame;
+        this.maxNanosPerFrame = maxMicrosPerFrame * NANOS_PER_MICRO;
+        this.isHidden = isHidden;
+    }
+
+    /**
+     * Queues an object, to be added to the collection in a later frame.
+     *
+     * @param gameObject The object to add.
+     * @param layer      The layer to add the object to.
+     * @param ticket     The batch the object belongs to.
+     */
+    public void enqueue(GameObject gameObject, int layer, Ticket ticket) {
+        Entry entry = new Entry(gameObject, layer, ticket);
+        ticket.entries.add(entry);
+        queue(entry, prioritizedFocusX);
+    }
+
+    /**
+     * Adds the queued objects closest to the focus, until the per-frame object count or time
+     * budget runs out.
+     *
+     * @param focusX The x-coordinate the objects closest to are added first.
+     * @return The number of objects added.
+     */
+    public int drain(float focusX) {
+        if (Math.abs(focusX - prioritizedFocusX) > REPRIORITIZE_DISTANCE) {
+            prioritize(focusX);
+        }
+        long start = System.nanoTime();
+        int added = 0;
+        while (added < maxObjectsPerFrame && !entries.isEmpty()) {
+            Entry entry = entries.poll();
+            entry.queued = false;
+            if (entry.spawned || entry.ticket.cancelled || entry.ticket.parked) {
+                continue;
+            }
+            spawn(entry);
+            added++;
+            if (System.nanoTime() - start >= maxNanosPerFrame) {
+                break;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Adds every queued object of a batch at once, regardless of the budget. The batch must not
+     * be parked.
+     *
+     * @param ticket The batch to add.
+     */
+    public void flush(Ticket ticket) {
+        for (Entry entry : ticket.entries) {
+            if (!entry.spawned) {
+                spawn(entry);
+            }
+        }
+    }
+
+    /**
+     * Parks a batch: the objects already added are removed from the collection, and the queued
+     * ones are not added, until the batch is unparked. Does nothing if the batch is parked.
+     *
+     * @param ticket The batch to park.
+     */
+    public void park(Ticket ticket) {
+        if (ticket.parked) {
+            return;
+        }
+        ticket.parked = true;
+        for (Entry entry : ticket.entries) {
+            if (entry.spawned) {
+                gameObjectCollection.removeGameObject(entry.gameObject, entry.layer);
+            }
+        }
+    }
+
+    /**
+     * Unparks a batch: its objects that were added before it was parked are added back to the
+     * collection, and its other objects are queued again. Does nothing if the batch is not parked.
+     *
+     * @param ticket The batch to unpark.
+     */
+    public void unpark(Ticket ticket) {
+        if (!ticket.parked) {
+            return;
+        }
+        ticket.parked = false;
+        for (Entry entry : ticket.entries) {
+            if (entry.spawned) {
+                if (!isHidden.test(entry.gameObject)) {
+                    gameObjectCollection.addGameObject(entry.gameObject, entry.layer);
+                }
+            } else if (!entry.queued) {
+                queue(entry, prioritizedFocusX);
+            }
+        }
+    }
+
+    /**
+     * Cancels a batch: its queued objects are dropped, and the ones already added are removed
+     * from the collection.
+     *
+     * @param ticket The batch to cancel.
+     */
+    public void cancel(Ticket ticket) {
+        ticket.cancelled = true;
+        for (Entry entry : ticket.entries) {
+            if (entry.spawned) {
+                if (!ticket.parked) {
+                    gameObjectCollection.removeGameObject(entry.gameObject, entry.layer);
+                }
+                spatialGrid.remove(entry.gameObject);
+            }
+        }
+        ticket.entries.clear();
+    }
+
+    /**
+     * Returns the number of queued entries, including cancelled ones not yet discarded.
+     *
+     * @return The number of queued entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private void queue(Entry entry, float focusX) {
+        entry.priority = distance(entry, focusX);
+        entry.queued = true;
+        entries.add(entry);
+    }
+
+    private void spawn(Entry entry) {
+        if (!isHidden.test(entry.gameObject)) {
+            gameObjectCollection.addGameObject(entry.gameObject, entry.layer);
+        }
+        if (entry.gameObject instanceof WorldObject && (((WorldObject) entry.gameObject)
+                .getCollisionCategory() & Constants.SPATIAL_GRID_CATEGORIES) != 0) {
+            spatialGrid.insert(entry.gameObject);
+        }
+        entry.spawned = true;
+    }
+
+    /**
+     * Recomputes the priorities of the queued objects by their distance to the given focus,
+     * discarding the entries that were already added or cancelled.
+     */
+    private void prioritize(float focusX) {
+        PriorityQueue<Entry> prioritized = new PriorityQueue<>(
+                Math.max(1, entries.size()), SpawnQueue::compare);
+        for (Entry entry : entries) {
+            if (!entry.spawned && !entry.ticket.cancelled && !entry.ticket.parked) {
+                entry.priority = distance(entry, focusX);
+                prioritized.add(entry);
+            } else {
+                entry.queued = false;
+            }
+        }
+        entries = prioritized;
+        prioritizedFocusX = focusX;
+    }
+
+    private static float distance(Entry entry, float focusX) {
+        return Math.abs(entry.gameObject.getCenter().x() - focusX);
+    }
+
+    private static int compare(Entry first, Entry second) {
+        return Float.compare(first.priority, second.priority);
+    }
+}
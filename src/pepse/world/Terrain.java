@@ -1,12 +1,16 @@
 
 package pepse.world;
 
+import danogl.GameObject;
+import danogl.gui.rendering.ImageRenderable;
 import danogl.gui.rendering.RectangleRenderable;
 import danogl.util.Vector2;
 import pepse.Constants;
-import pepse.util.ColorSupplier;
+import pepse.util.ColorPalette;
 import pepse.util.NoiseGenerator;
 
+import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,13 +23,36 @@ import java.util.List;
  *
  * @author Noam Barzilay
  */
-public class Terrain {
+public class Terrain implements GroundHeightProvider {
+    /**
+     * The ways the terrain can be split into colliders.
+     */
+    public enum CollisionMode {
+        /** A separate block, with its own collider, for every cell of the ground. */
+        PER_CELL,
+        /** A single block per ground column, rendering the colors of its cells. */
+        MERGED_COLUMNS,
+        /**
+         * A single invisible block per ground column, with the ground drawn by a texture baked
+         * once per range by createTextureInRange.
+         */
+        BAKED_TEXTURE
+    }
+
+    // Variants of the ground color, picked by the coordinates of each cell
+    private static final ColorPalette GROUND_PALETTE = new ColorPalette(Constants.BASE_GROUND_COLOR,
+            Constants.COLOR_PALETTE_SIZE, RectangleRenderable::new);
+
     /** Initial ground height at x=0 */
     public float groundHeightAtX0;
     // Noise generator for terrain generation
     private NoiseGenerator noiseGenerator;
     // Dimensions of the window or viewport
     private Vector2 windowDimensions;
+    // The way the ground is split into colliders
+    private final CollisionMode collisionMode;
+    // Memoized heights of the block columns
+    private final HeightmapCache heightmapCache;
 
     /**
      * Constructs a Terrain object with the specified window dimensions and seed for noise generation.
@@ -35,25 +62,115 @@ public class Terrain {
      * @param seed             The seed for noise generation.
      */
     public Terrain(Vector2 windowDimensions, int seed) {
+        this(windowDimensions, seed, CollisionMode.BAKED_TEXTURE);
+    }
+
+    /**
+     * Constructs a Terrain object with the specified window dimensions, seed for noise generation
+     * and collision mode.
+     *
+     * @param windowDimensions The dimensions of the window or viewport.
+     * @param seed             The seed for noise generation.
+     * @param collisionMode    The way the ground is split into colliders.
+     */
+    public Terrain(Vector2 windowDimensions, int seed, CollisionMode collisionMode) {
         this.groundHeightAtX0 = windowDimensions.y() * Constants.INITIAL_GROUND_HEIGHT_FACTOR;
         noiseGenerator = new NoiseGenerator(seed, (int) groundHeightAtX0);
         this.windowDimensions = windowDimensions;
+        this.collisionMode = collisionMode;
+        this.heightmapCache = new HeightmapCache(new GroundHeightProvider() {
+            @Override
+            public float groundHeightAt(float x) {
+                return computeGroundHeightAt(x);
+            }
+
+            @Override
+            public void fillHeights(int startX, int endX, float[] out) {
+                computeGroundHeights(startX, endX, out);
+            }
+        }, Constants.HEIGHTMAP_CACHE_MAX_BYTES);
     }
 
     /**
-     * Calculates the ground height at the specified x-coordinate using noise functions.
+     * Returns the way the ground is split into colliders.
+     *
+     * @return The collision mode of the terrain.
+     */
+    public CollisionMode getCollisionMode() {
+        return collisionMode;
+    }
+
+    /**
+     * Returns the cache of the ground heights of block columns, shared by every consumer of
+     * this terrain.
+     *
+     * @return The heightmap cache of the terrain.
+     */
+    public HeightmapCache heightmapCache() {
+        return heightmapCache;
+    }
+
+    /**
+     * Returns the ground height at the specified x-coordinate.
+     * Heights at multiples of block size are served from the heightmap cache.
      *
      * @param x The x-coordinate at which to calculate the ground height.
      * @return The calculated ground height at the specified x-coordinate.
      */
+    @Override
     public float groundHeightAt(float x) {
+        if (x % Constants.BLOCK_SIZE == 0) {
+            return heightmapCache.heightAt((int) x / Constants.BLOCK_SIZE);
+        }
+        return computeGroundHeightAt(x);
+    }
+
+    /**
+     * Fills the ground heights of the block columns within the specified x-range from the
+     * heightmap cache.
+     *
+     * @param startX The x-coordinate of the first column, a multiple of block size.
+     * @param endX   The x-coordinate at which the span ends (exclusive).
+     * @param out    The array receiving the heights, at least as long as the number of columns.
+     */
+    @Override
+    public void fillHeights(int startX, int endX, float[] out) {
+        int count = Math.max(0, (endX - startX + Constants.BLOCK_SIZE - 1) / Constants.BLOCK_SIZE);
+        heightmapCache.fillHeights(Math.floorDiv(startX, Constants.BLOCK_SIZE), out, count);
+    }
+
+    /**
+     * Calculates the ground height at the specified x-coordinate using noise functions.
+     *
+     * @param x The x-coordinate at which to calculate the ground height.
+     * @return The calculated ground height at the specified x-coordinate.
+     */
+    private float computeGroundHeightAt(float x) {
         float noise = (float) noiseGenerator.noise(x, Constants.BLOCK_SIZE * 7);
         return groundHeightAtX0 + noise;
     }
 
+    /**
+     * Calculates the ground heights of the block columns within the specified x-range using the
+     * batched noise of the whole span. Gives exactly the heights computeGroundHeightAt would.
+     *
+     * @param startX The x-coordinate of the first column, a multiple of block size.
+     * @param endX   The x-coordinate at which the span ends (exclusive).
+     * @param out    The array receiving the heights, at least as long as the number of columns.
+     */
+    private void computeGroundHeights(int startX, int endX, float[] out) {
+        int count = Math.max(0, (endX - startX + Constants.BLOCK_SIZE - 1) / Constants.BLOCK_SIZE);
+        double[] noise = new double[count];
+        noiseGenerator.noise(startX, Constants.BLOCK_SIZE, Constants.BLOCK_SIZE * 7, noise);
+        for (int i = 0; i < count; i++) {
+            out[i] = groundHeightAtX0 + (float) noise[i];
+        }
+    }
+
     /**
      * Creates a list of Block objects within the specified x-range.
-     * Generates blocks to represent the terrain within the given range.
+     * Generates blocks to represent the terrain within the given range, either one per cell or
+     * one per column, according to the collision mode of the terrain.
      *
      * @param minX The minimum x-coordinate of the range.
      * @param maxX The maximum x-coordinate of the range.
@@ -61,29 +178,139 @@ public class Terrain {
      */
     public List<Block> createInRange(int minX, int maxX) {
         List<Block> result = new ArrayList<>();
-        // Get starting X as multiple of block size
-        int startX = minX;
-        while (!(startX % Constants.BLOCK_SIZE == 0)) {
-            startX--;
-        }
-
-        for (int i = startX; i < maxX; i += Constants.BLOCK_SIZE) {
-            int startHeight = (int) Math.floor(groundHeightAt(i) /
-                    Constants.BLOCK_SIZE) * Constants.BLOCK_SIZE;
-
-            // Get height of last block as multiple of block size
-            int endHeight = (int) windowDimensions.y();
-            while (!(endHeight % Constants.BLOCK_SIZE == 0)) {
-                endHeight--;
+        int startX = alignToBlock(minX);
+        int[] columnTops = columnTopsInRange(startX, maxX);
+        int endHeight = groundBottom();
+        for (int column = 0; column < columnTops.length; column++) {
+            int i = startX + column * Constants.BLOCK_SIZE;
+            int startHeight = columnTops[column];
+            if (collisionMode != CollisionMode.PER_CELL) {
+                if (startHeight < endHeight) {
+                    result.add(createColumn(i, startHeight, endHeight));
+                }
+                continue;
             }
-
             for (int j = startHeight; j < endHeight; j += Constants.BLOCK_SIZE) {
-                Block block = new Block(new Vector2(i, j), new RectangleRenderable
-                        (ColorSupplier.approximateColor(Constants.BASE_GROUND_COLOR)));
+                Block block = new Block(new Vector2(i, j), GROUND_PALETTE.renderable(i, j));
                 block.setTag("ground");
                 result.add(block);
             }
         }
         return result;
     }
+
+    /**
+     * Bakes the ground cells within the specified x-range into a single image, and returns a
+     * render-only GameObject drawing it. Used together with the invisible colliders created by
+     * createInRange in the BAKED_TEXTURE collision mode, so the ground of a whole range is drawn
+     * with a single image instead of a fill call per cell.
+     *
+     * @param minX The minimum x-coordinate of the range.
+     * @param maxX The maximum x-coordinate of the range.
+     * @return A GameObject drawing the ground within the range, or null if the range is empty.
+     */
+    public GameObject createTextureInRange(int minX, int maxX) {
+        int startX = alignToBlock(minX);
+        int[] columnTops = columnTopsInRange(startX, maxX);
+        int columns = columnTops.length;
+        int endHeight = groundBottom();
+        int minTop = endHeight;
+        for (int columnTop : columnTops) {
+            minTop = Math.min(minTop, columnTop);
+        }
+        if (columns == 0 || minTop >= endHeight) {
+            return null;
+        }
+
+        // Rasterize every cell into one transparent image, from the highest column top down
+        BufferedImage image = new BufferedImage(columns * Constants.BLOCK_SIZE, endHeight - minTop,
+                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < columns; i++) {
+            for (int j = columnTops[i]; j < endHeight; j += Constants.BLOCK_SIZE) {
+                graphics.setColor(GROUND_PALETTE.color(startX + i * Constants.BLOCK_SIZE, j));
+                graphics.fillRect(i * Constants.BLOCK_SIZE, j - minTop,
+                        Constants.BLOCK_SIZE, Constants.BLOCK_SIZE);
+            }
+        }
+        graphics.dispose();
+
+        GameObject texture = new GameObject(new Vector2(startX, minTop),
+                new Vector2(image.getWidth(), image.getHeight()), new ImageRenderable(image));
+        texture.setTag("ground");
+        return texture;
+    }
+
+    /**
+     * Returns the y-coordinates of the top ground cells of the columns within the specified range,
+     * computing their ground heights in a single pass.
+     *
+     * @param startX The x-coordinate of the first column, a multiple of block size.
+     * @param maxX   The maximum x-coordinate of the range.
+     * @return The tops of the columns, as multiples of block size.
+     */
+    private int[] columnTopsInRange(int startX, int maxX) {
+        int columns = Math.max(0, (maxX - startX + Constants.BLOCK_SIZE - 1) / Constants.BLOCK_SIZE);
+        float[] heights = new float[columns];
+        fillHeights(startX, maxX, heights);
+        int[] columnTops = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            columnTops[i] = (int) Math.floor(heights[i] / Constants.BLOCK_SIZE) * Constants.BLOCK_SIZE;
+        }
+        return columnTops;
+    }
+
+    /**
+     * Returns the y-coordinate of the bottom of the ground.
+     *
+     * @return The bottom of the ground, as a multiple of block size.
+     */
+    private int groundBottom() {
+        // Get height of last block as multiple of block size
+        int endHeight = (int) windowDimensions.y() + Constants.TERRAIN_EXTRA_DEPTH;
+        while (!(endHeight % Constants.BLOCK_SIZE == 0)) {
+            endHeight--;
+        }
+        return endHeight;
+    }
+
+    /**
+     * Returns the given x-coordinate, moved left to a multiple of block size.
+     *
+     * @param x The x-coordinate.
+     * @return The largest multiple of block size that is not greater than x.
+     */
+    private static int alignToBlock(int x) {
+        while (!(x % Constants.BLOCK_SIZE == 0)) {
+            x--;
+        }
+        return x;
+    }
+
+    /**
+     * Creates a single block spanning a whole column of ground cells.
+     * The colors of the individual cells are kept only for rendering, and are not created at all
+     * when the ground is drawn by a baked texture.
+     *
+     * @param x           The x-coordinate of the column.
+     * @param startHeight The y-coordinate of the top of the column.
+     * @param endHeight   The y-coordinate of the bottom of the column.
+     * @return The block representing the column.
+     */
+    private Block createColumn(int x, int startHeight, int endHeight) {
+        Vector2 dimensions = new Vector2(Constants.BLOCK_SIZE, endHeight - startHeight);
+        if (collisionMode == CollisionMode.BAKED_TEXTURE) {
+            Block column = new Block(new Vector2(x, startHeight), dimensions, null);
+            column.setTag("ground");
+            return column;
+        }
+        Color[] cellColors = new Color[(endHeight - startHeight) / Constants.BLOCK_SIZE];
+        for (int i = 0; i < cellColors.length; i++) {
+            cellColors[i] = GROUND_PALETTE.color(x, startHeight + i * Constants.BLOCK_SIZE);
+        }
+        Block column = new Block(new Vector2(x, startHeight), dimensions,
+                new CellColumnRenderable(cellColors));
+        column.setTag("ground");
+        return column;
+    }
 }
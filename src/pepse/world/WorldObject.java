@@ -0,0 +1,107 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.collisions.Collision;
+import danogl.gui.rendering.Renderable;
+import danogl.util.Vector2;
+import pepse.CollisionTable;
+
+/**
+ * This class is the base of the GameObjects of the world that take part in collisions: the ground,
+ * the trees, the leaves, the fruits and the avatar.
+ * Each object belongs to a single collision category, a bit, and collides only with the
+ * categories in its collision mask, so filtering a candidate pair is a single AND instead of a
+ * tag comparison. Collisions that do happen are handed to the strategy registered for the pair
+ * of categories in the object's collision table, if it has one.
+ *
+ * @author Noam Barzilay
+ */
+public abstract class WorldObject extends GameObject {
+    // The category of the object, a single bit
+    private final int collisionCategory;
+    // The categories the object collides with
+    private final int collisionMask;
+    // Strategies handling the collisions of the object by category pair, if any
+    private final CollisionTable collisionTable;
+
+    /**
+     * Constructs a WorldObject object.
+     *
+     * @param topLeftCorner     The top-left corner position of the object.
+     * @param dimensions        The dimensions of the object.
+     * @param renderable        The renderable component for the object.
+     * @param collisionCategory The category of the object, a single bit.
+     * @param collisionMask     The categories the object collides with.
+     * @param collisionTable    The strategies handling the collisions of the object, or null if
+     *                          its collisions need no handling.
+     */
+    protected WorldObject(Vector2 topLeftCorner, Vector2 dimensions, Renderable renderable,
+                          int collisionCategory, int collisionMask,
+                          CollisionTable collisionTable) {
+        super(topLeftCorner, dimensions, renderable);
+        this.collisionCategory = collisionCategory;
+        this.collisionMask = collisionMask;
+        this.collisionTable = collisionTable;
+    }
+
+    /**
+     * Returns the collision category of the object.
+     *
+     * @return The category of the object, a single bit.
+     */
+    public int getCollisionCategory() {
+        return collisionCategory;
+    }
+
+    /**
+     * Returns the categories the object collides with.
+     *
+     * @return The collision mask of the object.
+     */
+    public int getCollisionMask() {
+        return collisionMask;
+    }
+
+    /**
+     * Determines whether the object should collide with the specified GameObject: world objects
+     * collide only if the other's category is in this object's mask.
+     *
+     * @param other The GameObject to check for collision.
+     * @return True if the object should collide with the other GameObject, otherwise false.
+     */
+    @Override
+    public boolean shouldCollideWith(GameObject other) {
+        if (other instanceof WorldObject) {
+            return (collisionMask & ((WorldObject) other).collisionCategory) != 0;
+        }
+        return super.shouldCollideWith(other);
+    }
+
+    /**
+     * Hands a collision with another world object to the strategy registered for their
+     * categories.
+     *
+     * @param other     The GameObject with which the collision occurs.
+     * @param collision The collision information.
+     */
+    @Override
+    public void onCollisionEnter(GameObject other, Collision collision) {
+        super.onCollisionEnter(other, collision);
+        if (other instanceof WorldObject) {
+            onContact((WorldObject) other);
+        }
+    }
+
+    /**
+     * Hands a contact with another world object to the strategy registered for their
+     * categories. Called for collisions detected by the engine, and for contacts found outside
+     * of it, such as through a spatial grid.
+     *
+     * @param other The world object in contact with this one.
+     */
+    public void onContact(WorldObject other) {
+        if (collisionTable != null) {
+            collisionTable.dispatch(this, collisionCategory, other, other.collisionCategory);
+        }
+    }
+}
@@ -3,38 +3,78 @@ package pepse.world.trees;
 
 import danogl.GameObject;
 import danogl.collisions.GameObjectCollection;
-import danogl.collisions.Layer;
-import danogl.components.Transition;
 import danogl.gui.rendering.OvalRenderable;
 import danogl.gui.rendering.RectangleRenderable;
+import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
 import pepse.Constants;
-import pepse.Observer;
-import pepse.util.ColorSupplier;
+import pepse.CollisionTable;
+import pepse.util.ColorPalette;
+import pepse.util.ObjectPool;
+import pepse.world.GameObjectSink;
+import pepse.world.GroundHeightProvider;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.function.Consumer;
-import java.util.function.Function;
 
 /**
  * This class represents the flora (trees, leaves, and fruits) in the game world.
  * It provides methods to generate and update flora GameObjects.
  * Flora objects include trees, leaves, and fruits, which are created within a specified range.
  * Trees are generated based on a given probability within the range.
+ * The flora of every block column is drawn from its own random generator, seeded by the world seed
+ * and the column index, so a range always yields the same flora, in whatever order, on whatever
+ * thread and however many times it is created.
  * Leaves and fruits are created around each tree based on custom probabilities.
  * Flora objects can be updated to change their appearance over time.
+ * Flora keeps its own registry of the trees, leaves and fruits currently in the world, so
+ * reacting to a jump touches only flora, never the rest of the game object collection.
+ * Registered leaves are swayed by a single shared Wind, which Flora adds to the game object
+ * collection on construction.
+ * Eaten fruits leave the game object collection, and a shared RespawnWheel, also added on
+ * construction, brings them back once their respawn time passes, if they are still in the world.
+ * Flora objects that leave the world can be released to pools, and are reused by later calls to
+ * createInRange instead of allocating new ones.
  *
  * @author Noam Barzilay
  * @version 1.0
  */
-public class Flora implements Observer {
-    // Random object for generating random values
+public class Flora {
+    // Random object for the colors flora switches to when the avatar jumps
     private static Random random = new Random();
+    // Variants of the flora colors, created once and picked by the coordinates of each object
+    private static final ColorPalette TRUNK_PALETTE = new ColorPalette(Constants.TREE_TRUNK_COLOR,
+            Constants.COLOR_PALETTE_SIZE, RectangleRenderable::new);
+    private static final ColorPalette LEAF_PALETTE = new ColorPalette(Constants.LEAF_COLOR,
+            Constants.COLOR_PALETTE_SIZE, RectangleRenderable::new);
+    private static final ColorPalette FRUIT_PALETTE = new ColorPalette(Constants.FRUIT_COLOR,
+            Constants.COLOR_PALETTE_SIZE, OvalRenderable::new);
+    // Renderables fruits switch between when the avatar jumps, created once
+    private static final OvalRenderable[] FRUIT_RENDERABLES = createFruitRenderables();
     private GameObjectCollection gameObjectCollection;
-    private Function<Float, Float> GroundHeightCallback;
-    private Consumer<Float> avatarGainCallback;
+    private GroundHeightProvider GroundHeightCallback;
+    // Handles the collisions of the fruits, shared by all of them
+    private final CollisionTable fruitCollisions;
+    // Seed of the world, from which the flora of every column is drawn
+    private final int seed;
+    // Probability of creating a tree in a block
+    private final float treeCreateProbability;
+    // Registries of the trees and fruits currently in the world, the leaves are held by the wind
+    private final LinkedHashSet<Tree> trees = new LinkedHashSet<>();
+    private final LinkedHashSet<Fruit> fruits = new LinkedHashSet<>();
+    // Pools of flora objects that left the world, for reuse
+    private final ObjectPool<Tree> treePool = new ObjectPool<>(Constants.FLORA_POOL_CAPACITY);
+    private final ObjectPool<Leaf> leafPool = new ObjectPool<>(Constants.FLORA_POOL_CAPACITY);
+    private final ObjectPool<Fruit> fruitPool = new ObjectPool<>(Constants.FLORA_POOL_CAPACITY);
+    // Sways every registered leaf
+    private final Wind wind = new Wind();
+    // Times the respawn of the eaten fruits
+    private final RespawnWheel respawnWheel = new RespawnWheel(Constants.RESPAWN_WHEEL_SLOTS,
+            Constants.RESPAWN_WHEEL_TICK, this::respawn);
 
     /**
      * Constructs a Flora object with the specified parameters.
@@ -42,23 +82,63 @@ public class Flora implements Observer {
      * @param gameObjectCollection The collection of GameObjects in the game world.
      * @param getGroundHeight      A callback function to retrieve the ground height at a given position.
      * @param avatarGainCallback   A callback function to handle avatar gain.
+     * @param seed                 The seed of the world.
      */
-    public Flora(GameObjectCollection gameObjectCollection,
-                 Function<Float, Float> getGroundHeight, Consumer<Float> avatarGainCallback) {
+    public Flora(GameObjectCollection gameObjectCollection, GroundHeightProvider getGroundHeight,
+                 Consumer<Float> avatarGainCallback, int seed) {
+        this(gameObjectCollection, getGroundHeight, avatarGainCallback, seed,
+                Constants.TREE_CREATE_PROBABILITY);
+    }
+
+    /**
+     * Constructs a Flora object with the specified parameters and tree density.
+     *
+     * @param gameObjectCollection  The collection of GameObjects in the game world.
+     * @param getGroundHeight       A callback function to retrieve the ground height at a given position.
+     * @param avatarGainCallback    A callback function to handle avatar gain.
+     * @param seed                  The seed of the world.
+     * @param treeCreateProbability The probability of creating a tree in a block.
+     */
+    public Flora(GameObjectCollection gameObjectCollection, GroundHeightProvider getGroundHeight,
+                 Consumer<Float> avatarGainCallback, int seed, float treeCreateProbability) {
         this.gameObjectCollection = gameObjectCollection;
         this.GroundHeightCallback = getGroundHeight;
-        this.avatarGainCallback = avatarGainCallback;
+        this.fruitCollisions = new CollisionTable().register(Constants.FRUIT_CATEGORY,
+                Constants.AVATAR_CATEGORY, new FruitStrategy(avatarGainCallback, this::eat));
+        this.seed = seed;
+        this.treeCreateProbability = treeCreateProbability;
+        // The wind goes in before any leaf, so it updates before them
+        gameObjectCollection.addGameObject(wind, Constants.LEAF_LAYER);
+        gameObjectCollection.addGameObject(respawnWheel, Constants.RESPAWN_WHEEL_LAYER);
     }
 
     /**
-     * Creates a list of tree GameObjects within the specified range.
+     * Creates the flora (trees, leaves and fruits) within the specified range, adds it to the
+     * game object collection and registers it.
      *
      * @param minX The minimum x-coordinate of the range.
      * @param maxX The maximum x-coordinate of the range.
-     * @return A list of tree GameObjects created within the range.
+     * @return A list of every flora GameObject created within the range.
      */
     public List<GameObject> createInRange(int minX, int maxX) {
-        List<GameObject> treesList = new ArrayList<>();
+        List<GameObject> floraList = createInRange(minX, maxX, gameObjectCollection::addGameObject);
+        register(floraList);
+        return floraList;
+    }
+
+    /**
+     * Creates the flora (trees, leaves and fruits) within the specified range and hands every
+     * created GameObject, with its layer, to the given sink. Does not touch the game object
+     * collection or the registry, so it may run on a worker thread when the sink does not either.
+     * The created objects should be registered once they enter the world.
+     *
+     * @param minX The minimum x-coordinate of the range.
+     * @param maxX The maximum x-coordinate of the range.
+     * @param sink Receives every created GameObject with the layer it belongs to.
+     * @return A list of every flora GameObject created within the range.
+     */
+    public List<GameObject> createInRange(int minX, int maxX, GameObjectSink sink) {
+        List<GameObject> floraList = new ArrayList<>();
         // Adjust minX and maxX to be multiples of Block size
         while (!(minX % Constants.BLOCK_SIZE == 0)) {
             minX--;
@@ -68,102 +148,279 @@ public class Flora implements Observer {
         }
         // Generate trees within the specified range
         for (int x = minX; x < maxX; x += Constants.BLOCK_SIZE) {
-            if (random.nextDouble() < Constants.TREE_CREATE_PROBABILITY) {
+            SplittableRandom columnRandom = columnRandom(x / Constants.BLOCK_SIZE);
+            if (columnRandom.nextDouble() < treeCreateProbability) {
                 // Create tree
-                Tree tree = createTree(x);
+                Tree tree = createTree(x, columnRandom);
+                sink.add(tree, Constants.TREE_LAYER);
+                floraList.add(tree);
                 // Create leaves and fruits around the tree
                 Vector2 squareCenter = tree.getCenter().subtract(
                         new Vector2(0, Constants.LEAVES_SQUARE_FACTOR * tree.getDimensions().y()));
-                createLeavesAndFruits(squareCenter);
-                // Add the tree to the list
-                treesList.add(tree);
+                createLeavesAndFruits(squareCenter, columnRandom, sink, floraList);
             }
         }
-        return treesList;
+        return floraList;
     }
 
-    @Override
-    public void update() {
-        // Update flora objects
-        for (GameObject gameObject : gameObjectCollection) {
-            if (gameObject.getTag().equals("tree")) {
-                // Change tree's trunk color
-                gameObject.renderer().setRenderable(new RectangleRenderable
-                        (ColorSupplier.approximateColor(Constants.TREE_TRUNK_COLOR)));
+    /**
+     * Registers flora objects that entered the world, so they react to the avatar's jumps.
+     *
+     * @param floraObjects Flora objects created by createInRange.
+     */
+    public void register(List<GameObject> floraObjects) {
+        for (GameObject gameObject : floraObjects) {
+            if (gameObject instanceof Tree) {
+                trees.add((Tree) gameObject);
+            } else if (gameObject instanceof Leaf) {
+                wind.add((Leaf) gameObject);
+            } else if (gameObject instanceof Fruit) {
+                fruits.add((Fruit) gameObject);
             }
-            if (gameObject.getTag().equals("fruit")) {
-                // Change fruit's color
-                int randIndex = random.nextInt(Constants.FRUIT_COLORS.length);
-                gameObject.renderer().setRenderable(new OvalRenderable(Constants.FRUIT_COLORS[randIndex]));
+        }
+    }
+
+    /**
+     * Unregisters flora objects that left the world.
+     *
+     * @param floraObjects Flora objects previously registered.
+     */
+    public void unregister(List<GameObject> floraObjects) {
+        for (GameObject gameObject : floraObjects) {
+            if (gameObject instanceof Tree) {
+                trees.remove(gameObject);
+            } else if (gameObject instanceof Leaf) {
+                wind.remove((Leaf) gameObject);
+            } else if (gameObject instanceof Fruit) {
+                fruits.remove(gameObject);
             }
-            if (gameObject.getTag().equals("leaf")) {
-                // Rotate leaf
-                new Transition<Float>(gameObject, gameObject.renderer()::setRenderableAngle,
-                        Constants.INITIAL90_ANGLE, Constants.FINAL90_ANGLE,
-                        Transition.LINEAR_INTERPOLATOR_FLOAT, Constants.ANGLE90_TRANSITION_TIME,
-                        Transition.TransitionType.TRANSITION_ONCE, null);
+        }
+    }
+
+    /**
+     * Releases flora objects that left the world to the pools, for reuse by createInRange.
+     * The objects must already be removed from the game object collection, and unregistered.
+     *
+     * @param floraObjects Flora objects created by createInRange.
+     */
+    public void release(List<GameObject> floraObjects) {
+        for (GameObject gameObject : floraObjects) {
+            if (gameObject instanceof Tree) {
+                treePool.release((Tree) gameObject);
+            } else if (gameObject instanceof Leaf) {
+                leafPool.release((Leaf) gameObject);
+            } else if (gameObject instanceof Fruit) {
+                respawnWheel.cancel((Fruit) gameObject);
+                fruitPool.release((Fruit) gameObject);
             }
         }
     }
 
+    /**
+     * Returns whether a flora object is an eaten fruit, which stays out of the game object
+     * collection until it respawns.
+     *
+     * @param gameObject The flora object.
+     * @return Whether the object is a fruit waiting to respawn.
+     */
+    public boolean isEaten(GameObject gameObject) {
+        return gameObject instanceof Fruit && respawnWheel.isScheduled((Fruit) gameObject);
+    }
+
+    /**
+     * Marks a fruit that is not in the game object collection yet as eaten, such as a fruit
+     * eaten in a saved world, so it is only added once it respawns. Does nothing if the fruit is
+     * already eaten.
+     *
+     * @param fruit The fruit.
+     */
+    public void markEaten(Fruit fruit) {
+        respawnWheel.schedule(fruit, Constants.CYCLE_LENGTH);
+    }
+
+    /**
+     * Returns the number of eaten fruits waiting to respawn.
+     *
+     * @return The number of pending fruit respawns.
+     */
+    public int eatenFruitCount() {
+        return respawnWheel.pendingCount();
+    }
+
+    /**
+     * Returns the number of flora objects reused from the pools instead of allocated.
+     *
+     * @return The number of reused trees, leaves and fruits.
+     */
+    public long reusedCount() {
+        return treePool.reuses() + leafPool.reuses() + fruitPool.reuses();
+    }
+
+    /**
+     * Returns the number of registered flora objects.
+     *
+     * @return The number of registered trees, leaves and fruits.
+     */
+    public int registeredCount() {
+        return trees.size() + wind.leafCount() + fruits.size();
+    }
+
+    /**
+     * Reacts to the avatar's jump: trees and fruits switch to other precreated colors, and every
+     * leaf rotates through the wind's shared rotation. Allocates nothing, however large the flora.
+     */
+    public void update() {
+        // Change trees' trunk color
+        for (Tree tree : trees) {
+            tree.renderer().setRenderable(
+                    TRUNK_PALETTE.renderable(random.nextInt(TRUNK_PALETTE.size())));
+        }
+        // Change fruits' color
+        for (Fruit fruit : fruits) {
+            fruit.renderer().setRenderable(
+                    FRUIT_RENDERABLES[random.nextInt(FRUIT_RENDERABLES.length)]);
+        }
+        // Rotate leaves
+        wind.rotateLeaves();
+    }
+
+    /**
+     * Takes an eaten fruit out of the game object collection, and schedules its respawn.
+     * Does nothing if the fruit is already eaten.
+     *
+     * @param fruit The fruit the avatar ate.
+     * @return Whether the fruit was eaten, false if it was already eaten.
+     */
+    private boolean eat(Fruit fruit) {
+        if (respawnWheel.isScheduled(fruit)) {
+            return false;
+        }
+        respawnWheel.schedule(fruit, Constants.CYCLE_LENGTH);
+        gameObjectCollection.removeGameObject(fruit, Constants.FRUIT_LAYER);
+        return true;
+    }
+
+    /**
+     * Brings a fruit whose respawn is due back to the game object collection, unless it left the
+     * world in the meantime, in which case it is added back along with the rest of its chunk.
+     *
+     * @param fruit The fruit to respawn.
+     */
+    private void respawn(Fruit fruit) {
+        if (fruits.contains(fruit)) {
+            gameObjectCollection.addGameObject(fruit, Constants.FRUIT_LAYER);
+        }
+    }
+
+    /**
+     * Creates a renderable for each of the fruit colors.
+     *
+     * @return The fruit renderables.
+     */
+    private static OvalRenderable[] createFruitRenderables() {
+        OvalRenderable[] renderables = new OvalRenderable[Constants.FRUIT_COLORS.length];
+        for (int i = 0; i < renderables.length; i++) {
+            renderables[i] = new OvalRenderable(Constants.FRUIT_COLORS[i]);
+        }
+        return renderables;
+    }
+
+    /**
+     * Returns the random generator of a block column, which depends only on the world seed and
+     * the column index.
+     *
+     * @param column The index of the column, its x-coordinate divided by block size.
+     * @return A random generator seeded by the world seed and the column.
+     */
+    private SplittableRandom columnRandom(int column) {
+        return new SplittableRandom(((long) seed << 32) | (column & 0xFFFFFFFFL));
+    }
+
     /**
      * Generates the height of a tree within a given block height.
+     * The height is even, at least half the leaves square size and below the block height minus
+     * half the leaves square size, drawn uniformly from these values in a single draw. If no such
+     * value exists, the minimal height is used.
      *
-     * @param blockHeight The height of the block where the tree will be placed.
+     * @param blockHeight  The height of the block where the tree will be placed.
+     * @param columnRandom The random generator of the tree's column.
      * @return The height of the generated tree.
      */
-    private int generateTreeHeight(float blockHeight) {
-        int treeHeight = random.nextInt((int) blockHeight - (Constants.LEAVES_SQUARE_SIZE / 2));
-        while (!(treeHeight % 2 == 0 && treeHeight >= (Constants.LEAVES_SQUARE_SIZE / 2))) {
-            treeHeight = random.nextInt((int) blockHeight - (Constants.LEAVES_SQUARE_SIZE / 2));
+    private static int generateTreeHeight(float blockHeight, SplittableRandom columnRandom) {
+        int minHeight = Constants.LEAVES_SQUARE_SIZE / 2;
+        int maxHeight = (int) blockHeight - (Constants.LEAVES_SQUARE_SIZE / 2); // Exclusive
+        int firstEven = minHeight + (minHeight & 1);
+        int evenCount = (maxHeight - firstEven + 1) / 2;
+        if (evenCount <= 0) {
+            return minHeight;
         }
-        return treeHeight;
+        return firstEven + 2 * columnRandom.nextInt(evenCount);
     }
 
     /**
-     * Creates a tree GameObject at the specified x-coordinate.
+     * Creates a tree GameObject at the specified x-coordinate, reusing a pooled one if possible.
      *
-     * @param x The x-coordinate of the tree.
+     * @param x            The x-coordinate of the tree.
+     * @param columnRandom The random generator of the tree's column.
      * @return The created tree GameObject.
      */
-    private Tree createTree(int x) {
-        Tree tree = new Tree(new RectangleRenderable
-                (ColorSupplier.approximateColor(Constants.TREE_TRUNK_COLOR)), GroundHeightCallback);
-        float blockHeight = tree.callback.apply((float) x);
-        int treeHeight = generateTreeHeight(blockHeight);
+    private Tree createTree(int x, SplittableRandom columnRandom) {
+        Renderable renderable = TRUNK_PALETTE.renderable(x, 0);
+        Tree tree = treePool.acquire();
+        if (tree == null) {
+            tree = new Tree(renderable, GroundHeightCallback);
+        } else {
+            tree.reset(renderable);
+        }
+        float blockHeight = tree.callback.groundHeightAt(x);
+        int treeHeight = generateTreeHeight(blockHeight, columnRandom);
         tree.setDimensions(new Vector2(Constants.BLOCK_SIZE, treeHeight));
         tree.setTopLeftCorner(new Vector2(x, blockHeight - treeHeight));
         tree.setTag("tree");
-        gameObjectCollection.addGameObject(tree, Layer.STATIC_OBJECTS);
         return tree;
     }
 
     /**
-     * Creates leaves and fruits around the specified center.
+     * Creates leaves and fruits around the specified center, reusing pooled ones if possible.
      *
-     * @param center The center around which leaves and fruits will be created.
+     * @param center       The center around which leaves and fruits will be created.
+     * @param columnRandom The random generator of the tree's column.
+     * @param sink         Receives the created leaves and fruits with their layers.
+     * @param floraList    The list to which the created leaves and fruits are appended.
      */
-    private void createLeavesAndFruits(Vector2 center) {
+    private void createLeavesAndFruits(Vector2 center, SplittableRandom columnRandom,
+                                       GameObjectSink sink, List<GameObject> floraList) {
         for (int i = (int) center.x() - (Constants.LEAVES_SQUARE_SIZE / 2); i < (int) center.x()
                 + Constants.LEAVES_SQUARE_SIZE / 2; i += (int) Constants.LEAF_SIZE) {
             for (int j = (int) center.y() - (Constants.LEAVES_SQUARE_SIZE / 2); j < (int) center.y()
                     + Constants.LEAVES_SQUARE_SIZE / 2; j += (int) Constants.LEAF_SIZE) {
                 // Create leaf based on custom probability
-                if (random.nextDouble() < Constants.LEAF_CREATE_PROBABILITY) {
-                    Leaf leaf = new Leaf(new RectangleRenderable(
-                            (ColorSupplier.approximateColor(Constants.LEAF_COLOR))));
-                    leaf.setTopLeftCorner(new Vector2(i, j));
-                    leaf.setTag("leaf");
-                    gameObjectCollection.addGameObject(leaf, Layer.BACKGROUND);
+                if (columnRandom.nextDouble() < Constants.LEAF_CREATE_PROBABILITY) {
+                    Renderable renderable = LEAF_PALETTE.renderable(i, j);
+                    Leaf leaf = leafPool.acquire();
+                    if (leaf == null) {
+                        leaf = new Leaf(renderable);
+                        leaf.setTopLeftCorner(new Vector2(i, j));
+                        leaf.setTag("leaf");
+                    } else {
+                        leaf.reset(new Vector2(i, j), renderable);
+                    }
+                    sink.add(leaf, Constants.LEAF_LAYER);
+                    floraList.add(leaf);
                 }
                 // Create fruit based on custom probability
-                if (random.nextDouble() < Constants.FRUIT_CREATE_PROBABILITY) {
-                    Fruit fruit = new Fruit(new OvalRenderable(
-                            (ColorSupplier.approximateColor(Constants.FRUIT_COLOR))),
-                            new FruitStrategy(), avatarGainCallback);
-                    fruit.setTopLeftCorner(new Vector2(i, j));
-                    fruit.setTag("fruit");
-                    gameObjectCollection.addGameObject(fruit);
+                if (columnRandom.nextDouble() < Constants.FRUIT_CREATE_PROBABILITY) {
+                    Renderable renderable = FRUIT_PALETTE.renderable(i, j);
+                    Fruit fruit = fruitPool.acquire();
+                    if (fruit == null) {
+                        fruit = new Fruit(renderable, fruitCollisions);
+                        fruit.setTopLeftCorner(new Vector2(i, j));
+                        fruit.setTag("fruit");
+                    } else {
+                        fruit.reset(new Vector2(i, j), renderable);
+                    }
+                    sink.add(fruit, Constants.FRUIT_LAYER);
+                    floraList.add(fruit);
                 }
             }
         }
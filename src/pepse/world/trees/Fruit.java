@@ -1,72 +1,47 @@
 
 package pepse.world.trees;
 
-import danogl.GameObject;
-import danogl.collisions.Collision;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
+import pepse.CollisionTable;
 import pepse.Constants;
-import pepse.CollisionStrategy;
-
-import java.util.function.Consumer;
+import pepse.world.WorldObject;
 
 /**
  * This class represents a fruit GameObject in the game world.
- * It extends the GameObject class and provides additional functionality for fruits.
- * Fruits can collide with the avatar and trigger energy gain upon collision.
- * They can also have a collision strategy defined for handling collisions with other GameObjects.
+ * It extends the WorldObject class and provides additional functionality for fruits.
+ * Fruits collide only with the avatar, and their collisions are handled by the strategies of
+ * their collision table, such as the avatar gaining energy from the fruit.
  * Fruits are typically placed in the game world and interact with other GameObjects.
  *
  * @author Noam Barzilay
  * @version 1.0
  */
-public class Fruit extends GameObject {
-    // Collision strategy for handling collisions with other GameObjects
-    private CollisionStrategy collisionStrategy;
-    // Callback function for handling energy gain upon collision with the avatar
-    private Consumer<Float> callback;
+public class Fruit extends WorldObject {
+    // Index of the fruit's node in the respawn wheel, or -1 if it is not eaten
+    int respawnNode = -1;
 
     /**
      * Constructs a Fruit object with the specified parameters.
      *
-     * @param renderable       The renderable component for the fruit.
-     * @param collisionStrategy The collision strategy for the fruit.
-     * @param callback         The callback function for energy gain upon collision.
-     */
-    public Fruit(Renderable renderable, CollisionStrategy collisionStrategy, Consumer<Float> callback) {
-        super(Vector2.ZERO, Constants.FRUIT_DIMENSIONS, renderable);
-        this.collisionStrategy = collisionStrategy;
-        this.callback = callback;
-    }
-
-    /**
-     * Determines whether the fruit should collide with the specified GameObject.
-     *
-     * @param other The GameObject to check for collision.
-     * @return True if the fruit should collide with the specified GameObject, otherwise false.
+     * @param renderable     The renderable component for the fruit.
+     * @param collisionTable The strategies handling the collisions of the fruit.
      */
-    @Override
-    public boolean shouldCollideWith(GameObject other) {
-        if (other.getTag().equals("avatar")) {
-            return true;
-        }
-        return super.shouldCollideWith(other);
+    public Fruit(Renderable renderable, CollisionTable collisionTable) {
+        super(Vector2.ZERO, Constants.FRUIT_DIMENSIONS, renderable, Constants.FRUIT_CATEGORY,
+                Constants.FRUIT_COLLISION_MASK, collisionTable);
     }
 
     /**
-     * Handles actions to be performed when a collision occurs with another GameObject.
+     * Re-initializes the fruit as if it was newly constructed at the specified position, so it
+     * can be reused from a pool.
      *
-     * @param other     The GameObject with which the collision occurs.
-     * @param collision The collision information.
+     * @param topLeftCorner The new top-left corner of the fruit.
+     * @param renderable    The new renderable component for the fruit.
      */
-    @Override
-    public void onCollisionEnter(GameObject other, Collision collision) {
-        super.onCollisionEnter(other, collision);
-        // Perform energy gain upon collision with the avatar
-        callback.accept(Constants.FRUIT_ENERGY_GAIN);
-        // Invoke collision strategy if defined
-        if (collisionStrategy != null) {
-            collisionStrategy.onCollision(this, other);
-        }
+    public void reset(Vector2 topLeftCorner, Renderable renderable) {
+        renderer().setRenderable(renderable);
+        setDimensions(Constants.FRUIT_DIMENSIONS);
+        setTopLeftCorner(topLeftCorner);
     }
 }
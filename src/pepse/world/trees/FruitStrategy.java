@@ -2,40 +2,56 @@
 package pepse.world.trees;
 
 import danogl.GameObject;
-import danogl.components.ScheduledTask;
-import danogl.util.Vector2;
-import pepse.Constants;
 import pepse.CollisionStrategy;
+import pepse.Constants;
+
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * This class represents a collision strategy for fruits in the game world.
  * It implements the CollisionStrategy interface and provides functionality for handling
  * collisions involving fruits. When a collision occurs between a fruit and the avatar, the fruit
- * "disappears" momentarily and then reappears.
- * This class defines the behavior of fruits upon collision with other GameObjects.
- * Fruits can trigger specific actions when colliding with certain GameObjects, such as the avatar.
+ * is eaten: it leaves the world until it respawns, and the avatar gains the fruit's energy. A
+ * fruit that is already eaten gives no energy.
+ * The strategy is registered for the fruit and avatar category pair, so it is only invoked for
+ * collisions with the avatar.
  *
  * @author Noam Barzilay
  * @version 1.0
  */
 public class FruitStrategy implements CollisionStrategy {
+    // Callback function for handling energy gain upon collision with the avatar
+    private final Consumer<Float> avatarGainCallback;
+    // Callback function taking the eaten fruit out of the world until it respawns, telling
+    // whether the fruit was still there to eat
+    private final Predicate<Fruit> eatCallback;
+
+    /**
+     * Constructs a FruitStrategy object.
+     *
+     * @param avatarGainCallback The callback function for energy gain upon collision.
+     * @param eatCallback        The callback function taking the eaten fruit out of the world,
+     *                           returning whether the fruit was still there to eat.
+     */
+    public FruitStrategy(Consumer<Float> avatarGainCallback, Predicate<Fruit> eatCallback) {
+        this.avatarGainCallback = avatarGainCallback;
+        this.eatCallback = eatCallback;
+    }
 
     /**
      * Handles actions to be performed when a collision occurs involving a fruit.
-     * When a fruit collides with the avatar, it "disappears" momentarily and then reappears.
+     * When a fruit collides with the avatar, it is eaten, and respawns later.
      *
      * @param thisObj   The fruit GameObject involved in the collision.
-     * @param otherObj  The other GameObject involved in the collision (e.g., the avatar).
+     * @param otherObj  The avatar.
      */
     @Override
     public void onCollision(GameObject thisObj, GameObject otherObj) {
-        // Check if the collision involves the avatar
-        if (otherObj.getTag().equals("avatar")) {
-            // Make the fruit "disappear"
-            thisObj.setDimensions(Vector2.ZERO);
-            // Schedule a task to make the fruit reappear after a certain delay
-            new ScheduledTask(thisObj, Constants.CYCLE_LENGTH, false,
-                    () -> thisObj.setDimensions(Constants.FRUIT_DIMENSIONS));
+        // The strategy is registered for fruits only
+        if (eatCallback.test((Fruit) thisObj)) {
+            // Perform energy gain upon eating the fruit
+            avatarGainCallback.accept(Constants.FRUIT_ENERGY_GAIN);
         }
     }
 }
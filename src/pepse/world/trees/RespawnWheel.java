@@ -0,0 +1,193 @@
+package pepse.world.trees;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * This class times the respawn of eaten fruits on a hashed timer wheel.
+ * Time is split into ticks, and the wheel holds one slot per tick of a full turn. A scheduled
+ * fruit is linked into the slot its respawn tick falls in, with the number of full turns left
+ * before it is due, and each tick only the fruits of the current slot are visited. Scheduling,
+ * cancelling and expiring a fruit are O(1), and however many fruits are pending, the wheel holds
+ * no component or task per fruit: the pending respawns are nodes of primitive arrays, linked by
+ * index, and freed nodes are reused.
+ * The wheel is a GameObject of its own, so the game object collection advances its clock.
+ *
+ * @author Noam Barzilay
+ */
+public class RespawnWheel extends GameObject {
+    // Initial capacity of the node arrays
+    private static final int INITIAL_CAPACITY = 64;
+    // Marks the end of a list of nodes
+    private static final int NONE = -1;
+
+    // Duration of a tick, in seconds
+    private final float tickLength;
+    // First node of each slot
+    private final int[] slotHeads;
+    // The fruit, the neighbouring nodes in its slot, the slot and the full turns left of each node
+    private Fruit[] nodeFruits = new Fruit[INITIAL_CAPACITY];
+    private int[] nodeNext = new int[INITIAL_CAPACITY];
+    private int[] nodePrevious = new int[INITIAL_CAPACITY];
+    private int[] nodeSlots = new int[INITIAL_CAPACITY];
+    private int[] nodeTurns = new int[INITIAL_CAPACITY];
+    // First freed node, the freed nodes are linked through nodeNext
+    private int freeHead = NONE;
+    // Number of nodes ever used
+    private int usedNodes;
+    // Number of pending respawns
+    private int pending;
+    // The slot of the current tick, and the time elapsed in it
+    private int currentSlot;
+    private float tickTime;
+    // Called with every fruit whose respawn is due
+    private final Consumer<Fruit> respawnCallback;
+
+    /**
+     * Constructs a RespawnWheel object with no pending respawns.
+     *
+     * @param slotCount       The number of slots, the ticks of a full turn of the wheel.
+     * @param tickLength      The duration of a tick, in seconds.
+     * @param respawnCallback Called with every fruit whose respawn is due.
+     */
+    public RespawnWheel(int slotCount, float tickLength, Consumer<Fruit> respawnCallback) {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        this.tickLength = tickLength;
+        this.slotHeads = new int[slotCount];
+        this.respawnCallback = respawnCallback;
+        Arrays.fill(slotHeads, NONE);
+        setTag("respawnWheel");
+    }
+
+    /**
+     * Schedules the respawn of a fruit. Does nothing if its respawn is already pending.
+     *
+     * @param fruit The eaten fruit.
+     * @param delay The time until the fruit respawns, in seconds.
+     */
+    public void schedule(Fruit fruit, float delay) {
+        if (fruit.respawnNode != NONE) {
+            return;
+        }
+        int ticks = Math.max(1, (int) Math.ceil(delay / tickLength));
+        int node = allocateNode();
+        nodeFruits[node] = fruit;
+        nodeTurns[node] = (ticks - 1) / slotHeads.length;
+        int slot = (currentSlot + ticks) % slotHeads.length;
+        nodeSlots[node] = slot;
+        nodePrevious[node] = NONE;
+        nodeNext[node] = slotHeads[slot];
+        if (slotHeads[slot] != NONE) {
+            nodePrevious[slotHeads[slot]] = node;
+        }
+        slotHeads[slot] = node;
+        fruit.respawnNode = node;
+        pending++;
+    }
+
+    /**
+     * Cancels the pending respawn of a fruit. Does nothing if none is pending.
+     *
+     * @param fruit The fruit.
+     */
+    public void cancel(Fruit fruit) {
+        int node = fruit.respawnNode;
+        if (node != NONE) {
+            unlink(node);
+        }
+    }
+
+    /**
+     * Returns whether the respawn of a fruit is pending, that is, whether it is eaten.
+     *
+     * @param fruit The fruit.
+     * @return Whether the fruit waits to respawn.
+     */
+    public boolean isScheduled(Fruit fruit) {
+        return fruit.respawnNode != NONE;
+    }
+
+    /**
+     * Returns the number of pending respawns.
+     *
+     * @return The number of fruits waiting to respawn.
+     */
+    public int pendingCount() {
+        return pending;
+    }
+
+    /**
+     * Advances the clock of the wheel, respawning the fruits of every tick that passed.
+     *
+     * @param deltaTime The time elapsed since the last update.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        tickTime += deltaTime;
+        while (tickTime >= tickLength) {
+            tickTime -= tickLength;
+            currentSlot = (currentSlot + 1) % slotHeads.length;
+            expireSlot(currentSlot);
+        }
+    }
+
+    /**
+     * Respawns the fruits of a slot that are due this turn, and counts down the others.
+     */
+    private void expireSlot(int slot) {
+        int node = slotHeads[slot];
+        while (node != NONE) {
+            int next = nodeNext[node];
+            if (nodeTurns[node] > 0) {
+                nodeTurns[node]--;
+            } else {
+                Fruit fruit = nodeFruits[node];
+                unlink(node);
+                respawnCallback.accept(fruit);
+            }
+            node = next;
+        }
+    }
+
+    private int allocateNode() {
+        if (freeHead != NONE) {
+            int node = freeHead;
+            freeHead = nodeNext[node];
+            return node;
+        }
+        if (usedNodes == nodeFruits.length) {
+            int capacity = usedNodes * 2;
+            nodeFruits = Arrays.copyOf(nodeFruits, capacity);
+            nodeNext = Arrays.copyOf(nodeNext, capacity);
+            nodePrevious = Arrays.copyOf(nodePrevious, capacity);
+            nodeSlots = Arrays.copyOf(nodeSlots, capacity);
+            nodeTurns = Arrays.copyOf(nodeTurns, capacity);
+        }
+        return usedNodes++;
+    }
+
+    /**
+     * Unlinks a node from its slot and frees it.
+     */
+    private void unlink(int node) {
+        int previous = nodePrevious[node];
+        int next = nodeNext[node];
+        if (previous == NONE) {
+            slotHeads[nodeSlots[node]] = next;
+        } else {
+            nodeNext[previous] = next;
+        }
+        if (next != NONE) {
+            nodePrevious[next] = previous;
+        }
+        nodeFruits[node].respawnNode = NONE;
+        nodeFruits[node] = null;
+        nodeNext[node] = freeHead;
+        freeHead = node;
+        pending--;
+    }
+}
@@ -1,26 +1,27 @@
 
 package pepse.world.trees;
 
-import danogl.GameObject;
 import danogl.components.GameObjectPhysics;
 import danogl.gui.rendering.Renderable;
 import danogl.util.Vector2;
-
-import java.util.function.Function;
+import pepse.Constants;
+import pepse.world.GroundHeightProvider;
+import pepse.world.WorldObject;
 
 /**
  * This class represents a tree GameObject in the game world.
- * It extends the GameObject class and provides additional functionality for trees.
+ * It extends the WorldObject class and provides additional functionality for trees.
  * Trees are typically placed in the game world and interact with other GameObjects.
  * Each tree has a callback function to retrieve the ground height at its position.
- * Trees are static objects that prevent intersections and have immovable mass.
+ * Trees are static objects that prevent intersections and have immovable mass, and only the
+ * avatar collides with them.
  *
  * @author Noam Barzilay
  * @version 1.0
  */
-public class Tree extends GameObject {
+public class Tree extends WorldObject {
     // Callback function to retrieve the ground height at the tree's position
-    final Function<Float, Float> callback;
+    final GroundHeightProvider callback;
 
     /**
      * Constructs a Tree object with the specified renderable component and ground height callback function.
@@ -29,12 +30,23 @@ public class Tree extends GameObject {
      * @param renderable      The renderable component for the tree.
      * @param getGroundHeight The callback function to retrieve the ground height at the tree's position.
      */
-    public Tree(Renderable renderable, Function<Float, Float> getGroundHeight) {
-        super(Vector2.ZERO, Vector2.ONES, renderable);
+    public Tree(Renderable renderable, GroundHeightProvider getGroundHeight) {
+        super(Vector2.ZERO, Vector2.ONES, renderable, Constants.TREE_CATEGORY,
+                Constants.TREE_COLLISION_MASK, null);
         this.callback = getGroundHeight;
         // Prevent intersections from any direction
         physics().preventIntersectionsFromDirection(Vector2.ZERO);
         // Set mass to immovable
         physics().setMass(GameObjectPhysics.IMMOVABLE_MASS);
     }
+
+    /**
+     * Re-initializes the tree with a new appearance, so it can be reused from a pool.
+     * The tree is then placed by setting its dimensions and top-left corner.
+     *
+     * @param renderable The new renderable component for the tree.
+     */
+    public void reset(Renderable renderable) {
+        renderer().setRenderable(renderable);
+    }
 }
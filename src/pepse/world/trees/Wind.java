@@ -0,0 +1,157 @@
+package pepse.world.trees;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+import pepse.Constants;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * This class represents the wind that sways every leaf in the game world.
+ * It is a single invisible GameObject holding one shared clock. Each leaf keeps only the time its
+ * swaying starts at, after a random initial delay, and every frame the wind sets the angle and the
+ * size of all the leaves from the shared clock in one loop over a compact array. The leaves sway
+ * back and forth exactly as they would with their own angle and size transitions, without a single
+ * component per leaf.
+ * The wind also holds the single rotation every leaf goes through when the avatar jumps, which
+ * overrides the swaying angle of all the leaves for as long as it runs.
+ *
+ * @author Noam Barzilay
+ */
+public class Wind extends GameObject {
+    // Number of precomputed leaf sizes between the original and the shrunk size
+    private static final int SIZE_STEPS = 64;
+    // Initial capacity of the leaf arrays
+    private static final int INITIAL_CAPACITY = 256;
+    // Random object for generating random delays
+    private static final Random rand = new Random();
+
+    // Precomputed leaf sizes, so swaying leaves never allocate their dimensions
+    private final Vector2[] sizes = new Vector2[SIZE_STEPS + 1];
+    // Time since the wind started blowing
+    private float time;
+    // The swayed leaves, and the time each of them starts swaying at
+    private Leaf[] leaves = new Leaf[INITIAL_CAPACITY];
+    private float[] startTimes = new float[INITIAL_CAPACITY];
+    // Number of swayed leaves
+    private int count;
+    // Time since the leaves started their jump rotation, negative if they are not rotating
+    private float rotationTime = -1;
+
+    /**
+     * Constructs a Wind object, which sways no leaves until they are added to it.
+     */
+    public Wind() {
+        super(Vector2.ZERO, Vector2.ZERO, null);
+        for (int i = 0; i <= SIZE_STEPS; i++) {
+            sizes[i] = Constants.LEAF_DIMENSIONS.add(Constants.LEAF_SIZE_CHANGE
+                    .subtract(Constants.LEAF_DIMENSIONS).mult((float) i / SIZE_STEPS));
+        }
+        setTag("wind");
+    }
+
+    /**
+     * Starts swaying a leaf after a random initial delay. Does nothing if it already sways.
+     *
+     * @param leaf The leaf to sway.
+     */
+    public void add(Leaf leaf) {
+        if (leaf.windIndex >= 0) {
+            return;
+        }
+        if (count == leaves.length) {
+            leaves = Arrays.copyOf(leaves, count * 2);
+            startTimes = Arrays.copyOf(startTimes, count * 2);
+        }
+        leaf.windIndex = count;
+        leaves[count] = leaf;
+        startTimes[count] = time + rand.nextFloat() * Constants.LEAF_WAIT_TIME_CONST;
+        count++;
+    }
+
+    /**
+     * Stops swaying a leaf. Does nothing if it does not sway.
+     *
+     * @param leaf The leaf to stop swaying.
+     */
+    public void remove(Leaf leaf) {
+        int index = leaf.windIndex;
+        if (index < 0) {
+            return;
+        }
+        // Move the last leaf into the freed slot
+        count--;
+        leaves[index] = leaves[count];
+        startTimes[index] = startTimes[count];
+        leaves[index].windIndex = index;
+        leaves[count] = null;
+        leaf.windIndex = -1;
+    }
+
+    /**
+     * Rotates every leaf from INITIAL90_ANGLE to FINAL90_ANGLE, restarting the rotation if it is
+     * already running. The leaves go back to swaying once the rotation ends.
+     */
+    public void rotateLeaves() {
+        rotationTime = 0;
+    }
+
+    /**
+     * Returns the number of swayed leaves.
+     *
+     * @return The number of swayed leaves.
+     */
+    public int leafCount() {
+        return count;
+    }
+
+    /**
+     * Advances the shared clock and sets the angle and size of every leaf that started swaying,
+     * or the angle of every leaf while they rotate.
+     *
+     * @param deltaTime The time elapsed since the last update.
+     */
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+        time += deltaTime;
+        boolean rotating = rotationTime >= 0;
+        float rotationAngle = 0;
+        if (rotating) {
+            rotationTime += deltaTime;
+            float rotationProgress = Math.min(1, rotationTime / Constants.ANGLE90_TRANSITION_TIME);
+            rotationAngle = Constants.INITIAL90_ANGLE +
+                    (Constants.FINAL90_ANGLE - Constants.INITIAL90_ANGLE) * rotationProgress;
+            if (rotationProgress == 1) {
+                rotationTime = -1;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Leaf leaf = leaves[i];
+            if (rotating) {
+                leaf.renderer().setRenderableAngle(rotationAngle);
+            }
+            float swayTime = time - startTimes[i];
+            if (swayTime < 0) {
+                continue;
+            }
+            if (!rotating) {
+                float angleProgress = backAndForth(swayTime / Constants.ANGLE_TRANSITION_TIME);
+                leaf.renderer().setRenderableAngle(Constants.INITIAL_ANGLE +
+                        (Constants.FINAL_ANGLE - Constants.INITIAL_ANGLE) * angleProgress);
+            }
+            float sizeProgress = backAndForth(swayTime / Constants.SIZE_TRANSITION_TIME);
+            leaf.setDimensions(sizes[Math.round(sizeProgress * SIZE_STEPS)]);
+        }
+    }
+
+    /**
+     * Maps a number of transition lengths to the progress of a back and forth transition, going
+     * from 0 to 1 during even lengths and back from 1 to 0 during odd ones.
+     */
+    private static float backAndForth(float lengths) {
+        float progress = lengths % 2;
+        return progress <= 1 ? progress : 2 - progress;
+    }
+}
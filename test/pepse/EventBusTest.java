@@ -0,0 +1,114 @@
+package pepse;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of EventBus: coalescing within a frame, publication order, and events published while
+ * dispatching.
+ *
+ * @author Noam Barzilay
+ */
+class EventBusTest {
+    /**
+     * Records every delivered event as its type and value.
+     */
+    private static final class Recorder implements EventSubscriber {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onEvent(EventType type, double value) {
+            events.add(type + "=" + value);
+        }
+    }
+
+    @Test
+    void coalescingTypeIsDeliveredOnceWithTheLastValue() {
+        EventBus bus = new EventBus();
+        Recorder recorder = new Recorder();
+        bus.subscribe(EventType.JUMP, recorder);
+
+        bus.publish(EventType.JUMP, 90);
+        bus.publish(EventType.JUMP, 80);
+        bus.publish(EventType.JUMP, 70);
+
+        assertEquals(1, bus.queuedCount());
+        bus.dispatch();
+        assertEquals(List.of("JUMP=70.0"), recorder.events);
+    }
+
+    @Test
+    void coalescedEventKeepsThePositionOfItsFirstPublication() {
+        EventBus bus = new EventBus();
+        Recorder recorder = new Recorder();
+        bus.subscribe(EventType.JUMP, recorder);
+        bus.subscribe(EventType.FRUIT_EATEN, recorder);
+
+        bus.publish(EventType.JUMP, 90);
+        bus.publish(EventType.FRUIT_EATEN, 10);
+        bus.publish(EventType.JUMP, 80);
+        bus.dispatch();
+
+        assertEquals(List.of("JUMP=80.0", "FRUIT_EATEN=10.0"), recorder.events);
+    }
+
+    @Test
+    void nonCoalescingTypeDeliversEveryPublicationInOrder() {
+        EventBus bus = new EventBus();
+        Recorder recorder = new Recorder();
+        bus.subscribe(EventType.CHUNK_LOADED, recorder);
+
+        bus.publish(EventType.CHUNK_LOADED, 1);
+        bus.publish(EventType.CHUNK_LOADED, 2);
+        bus.publish(EventType.CHUNK_LOADED, 3);
+        bus.dispatch();
+
+        assertEquals(List.of("CHUNK_LOADED=1.0", "CHUNK_LOADED=2.0", "CHUNK_LOADED=3.0"),
+                recorder.events);
+    }
+
+    @Test
+    void coalescingStartsOverInTheNextFrame() {
+        EventBus bus = new EventBus();
+        Recorder recorder = new Recorder();
+        bus.subscribe(EventType.LAND, recorder);
+
+        bus.publish(EventType.LAND, 1);
+        bus.publish(EventType.LAND, 2);
+        bus.dispatch();
+        bus.publish(EventType.LAND, 3);
+        bus.dispatch();
+
+        assertEquals(List.of("LAND=2.0", "LAND=3.0"), recorder.events);
+    }
+
+    @Test
+    void eventsPublishedWhileDispatchingWaitForTheNextDispatch() {
+        EventBus bus = new EventBus();
+        Recorder recorder = new Recorder();
+        bus.subscribe(EventType.ENERGY_CHANGED, recorder);
+        bus.subscribe(EventType.JUMP,
+                (type, value) -> bus.publish(EventType.ENERGY_CHANGED, value));
+
+        bus.publish(EventType.JUMP, 50);
+        bus.dispatch();
+        assertEquals(List.of(), recorder.events);
+        assertEquals(1, bus.queuedCount());
+
+        bus.dispatch();
+        assertEquals(List.of("ENERGY_CHANGED=50.0"), recorder.events);
+    }
+
+    @Test
+    void eventsWithoutSubscribersAreNotQueued() {
+        EventBus bus = new EventBus();
+
+        bus.publish(EventType.FRUIT_EATEN, 10);
+
+        assertEquals(0, bus.queuedCount());
+    }
+}
@@ -0,0 +1,190 @@
+package pepse.save;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pepse.Constants;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of WorldSave and its region files: what is written is read back, for chunks on both sides
+ * of the origin and of region boundaries, records of another world are never read, and files
+ * that are not region files are neither read nor overwritten when only reading.
+ *
+ * @author Noam Barzilay
+ */
+class WorldSaveTest {
+    // Seeds of the tested worlds
+    private static final int SEED = 1234;
+    private static final int OTHER_SEED = 5678;
+
+    // The directory the tested worlds are saved in
+    @TempDir
+    Path directory;
+
+    @Test
+    void worldStateIsReadBack() throws IOException {
+        WorldSave save = new WorldSave(directory);
+        save.writeWorld(new WorldSave.WorldState(SEED, -150.5f, 420.25f, 73));
+
+        WorldSave.WorldState state = new WorldSave(directory).readWorld();
+
+        assertEquals(SEED, state.getSeed());
+        assertEquals(-150.5f, state.getAvatarX());
+        assertEquals(420.25f, state.getAvatarY());
+        assertEquals(73, state.getEnergy());
+        assertFalse(Files.exists(directory.resolve("world.dat.tmp")));
+    }
+
+    @Test
+    void eatenFruitsAreReadBackAcrossRegionBoundaries() throws IOException {
+        int regionChunks = Constants.SAVE_REGION_CHUNKS;
+        int[] chunkIndices = {-2 * regionChunks - 1, -regionChunks - 1, -regionChunks, -1, 0,
+                regionChunks - 1, regionChunks};
+        WorldSave save = saveOf(SEED);
+        for (int chunkIndex : chunkIndices) {
+            save.writeEatenFruits(chunkIndex, eatenFruits(chunkIndex));
+        }
+        save.flush();
+
+        WorldSave reread = saveOf(SEED);
+        for (int chunkIndex : chunkIndices) {
+            long[] words = new long[Constants.SAVE_FRUIT_WORDS];
+            assertTrue(reread.readEatenFruits(chunkIndex, words));
+            assertArrayEquals(eatenFruits(chunkIndex), words);
+        }
+        // Chunks sharing a region with the written ones have no record of their own
+        assertFalse(reread.readEatenFruits(-2, new long[Constants.SAVE_FRUIT_WORDS]));
+        assertFalse(reread.readEatenFruits(1, new long[Constants.SAVE_FRUIT_WORDS]));
+        for (int regionIndex = -3; regionIndex <= 1; regionIndex++) {
+            assertTrue(Files.exists(regionPath(regionIndex)));
+        }
+        // The chunk just left of the origin is the last one of the region left of the origin
+        long[] words = new long[Constants.SAVE_FRUIT_WORDS];
+        RegionFile region = RegionFile.open(regionPath(-1), SEED, false);
+        assertTrue(region.read(regionChunks - 1, SEED, words));
+        assertArrayEquals(eatenFruits(-1), words);
+    }
+
+    @Test
+    void chunkWithoutEatenFruitsCreatesNoRegionFile() throws IOException {
+        WorldSave save = saveOf(SEED);
+
+        save.writeEatenFruits(-1, new long[Constants.SAVE_FRUIT_WORDS]);
+
+        assertFalse(Files.exists(regionPath(-1)));
+        assertFalse(save.readEatenFruits(-1, new long[Constants.SAVE_FRUIT_WORDS]));
+    }
+
+    @Test
+    void recordsOfAnotherSeedAreIgnoredWhenReadAndClearedWhenWritten() throws IOException {
+        WorldSave save = saveOf(SEED);
+        save.writeEatenFruits(3, eatenFruits(3));
+        save.flush();
+
+        WorldSave otherSave = saveOf(OTHER_SEED);
+        assertFalse(otherSave.readEatenFruits(3, new long[Constants.SAVE_FRUIT_WORDS]));
+        otherSave.writeEatenFruits(4, eatenFruits(4));
+        otherSave.flush();
+
+        WorldSave reread = saveOf(SEED);
+        assertFalse(reread.readEatenFruits(3, new long[Constants.SAVE_FRUIT_WORDS]));
+        assertFalse(reread.readEatenFruits(4, new long[Constants.SAVE_FRUIT_WORDS]));
+        // The region now belongs to the other world, which did not adopt the cleared record
+        WorldSave otherReread = saveOf(OTHER_SEED);
+        assertFalse(otherReread.readEatenFruits(3, new long[Constants.SAVE_FRUIT_WORDS]));
+        long[] words = new long[Constants.SAVE_FRUIT_WORDS];
+        assertTrue(otherReread.readEatenFruits(4, words));
+        assertArrayEquals(eatenFruits(4), words);
+    }
+
+    @Test
+    void fileOfTheWrongSizeIsNotReadNorOverwritten() throws IOException {
+        byte[] contents = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        Path path = regionPath(0);
+        Files.write(path, contents);
+
+        assertNull(RegionFile.open(path, SEED, false));
+        assertFalse(saveOf(SEED).readEatenFruits(0, new long[Constants.SAVE_FRUIT_WORDS]));
+        assertArrayEquals(contents, Files.readAllBytes(path));
+    }
+
+    @Test
+    void fileOfTheWrongMagicIsNotReadNorOverwritten() throws IOException {
+        WorldSave save = saveOf(SEED);
+        save.writeEatenFruits(0, eatenFruits(0));
+        save.flush();
+        Path path = regionPath(0);
+        byte[] contents = Files.readAllBytes(path);
+        ByteBuffer.wrap(contents).putInt(0, 0x12345678);
+        Files.write(path, contents);
+
+        assertNull(RegionFile.open(path, SEED, false));
+        assertFalse(saveOf(SEED).readEatenFruits(0, new long[Constants.SAVE_FRUIT_WORDS]));
+        assertArrayEquals(contents, Files.readAllBytes(path));
+    }
+
+    @Test
+    void readingAWorldNeverSavedDeletesItsRegionFiles() throws IOException {
+        WorldSave save = saveOf(SEED);
+        save.writeEatenFruits(-1, eatenFruits(-1));
+        save.writeEatenFruits(0, eatenFruits(0));
+        save.flush();
+        Path unrelated = directory.resolve("notes.txt");
+        Files.writeString(unrelated, "kept");
+
+        WorldSave reread = saveOf(SEED);
+        assertNull(reread.readWorld());
+
+        assertFalse(Files.exists(regionPath(-1)));
+        assertFalse(Files.exists(regionPath(0)));
+        assertTrue(Files.exists(unrelated));
+        assertFalse(reread.readEatenFruits(0, new long[Constants.SAVE_FRUIT_WORDS]));
+    }
+
+    @Test
+    void readingASavedWorldKeepsItsRegionFiles() throws IOException {
+        WorldSave save = saveOf(SEED);
+        save.writeEatenFruits(0, eatenFruits(0));
+        save.flush();
+        save.writeWorld(new WorldSave.WorldState(SEED, 0, 0, 100));
+
+        WorldSave reread = saveOf(SEED);
+        assertEquals(SEED, reread.readWorld().getSeed());
+
+        long[] words = new long[Constants.SAVE_FRUIT_WORDS];
+        assertTrue(reread.readEatenFruits(0, words));
+        assertArrayEquals(eatenFruits(0), words);
+    }
+
+    private WorldSave saveOf(int seed) {
+        WorldSave save = new WorldSave(directory);
+        save.setSeed(seed);
+        return save;
+    }
+
+    private Path regionPath(int regionIndex) {
+        return directory.resolve("region." + regionIndex + ".dat");
+    }
+
+    /**
+     * Returns a bitset of eaten fruits of its own for every chunk, with the first and the last
+     * fruit of the chunk eaten.
+     */
+    private static long[] eatenFruits(int chunkIndex) {
+        long[] words = new long[Constants.SAVE_FRUIT_WORDS];
+        words[0] = 1L | (long) (chunkIndex & 0xff) << 8;
+        int last = Constants.MAX_FRUITS_PER_CHUNK - 1;
+        words[last / Long.SIZE] |= 1L << (last % Long.SIZE);
+        return words;
+    }
+}
@@ -0,0 +1,87 @@
+package pepse.world;
+
+import org.junit.jupiter.api.Test;
+import pepse.Constants;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests of HeightmapCache: cached heights match their source, and once the cache is at capacity,
+ * the least recently used page is the one evicted.
+ *
+ * @author Noam Barzilay
+ */
+class HeightmapCacheTest {
+    // Number of columns in each page of the tested caches
+    private static final int PAGE_COLUMNS = 4;
+    // Memory cap of the tested caches, two pages of heights
+    private static final long TWO_PAGES = 2L * PAGE_COLUMNS * Float.BYTES;
+    // The ground height at x, so every column has its own height
+    private static final GroundHeightProvider SOURCE = x -> x * 0.5f;
+
+    @Test
+    void heightsMatchTheSource() {
+        HeightmapCache cache = new HeightmapCache(SOURCE, PAGE_COLUMNS, TWO_PAGES);
+
+        for (int column = -6; column < 6; column++) {
+            assertEquals(SOURCE.groundHeightAt(column * Constants.BLOCK_SIZE),
+                    cache.heightAt(column));
+        }
+    }
+
+    @Test
+    void fillHeightsSpansSeveralPages() {
+        HeightmapCache cache = new HeightmapCache(SOURCE, PAGE_COLUMNS, TWO_PAGES);
+        float[] heights = new float[7];
+
+        cache.fillHeights(-2, heights, heights.length);
+
+        float[] expected = new float[heights.length];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = SOURCE.groundHeightAt((i - 2) * Constants.BLOCK_SIZE);
+        }
+        assertArrayEquals(expected, heights);
+    }
+
+    @Test
+    void leastRecentlyUsedPageIsEvictedAtCapacity() {
+        HeightmapCache cache = new HeightmapCache(SOURCE, PAGE_COLUMNS, TWO_PAGES);
+        cache.heightAt(pageColumn(0));
+        cache.heightAt(pageColumn(1));
+        // Page 0 becomes the most recently used, so page 1 is now the eldest
+        cache.heightAt(pageColumn(0));
+        assertEquals(2, cache.misses());
+
+        cache.heightAt(pageColumn(2));
+        assertEquals(3, cache.misses());
+        assertEquals(2, cache.pageCount());
+
+        cache.heightAt(pageColumn(0));
+        assertEquals(3, cache.misses());
+        cache.heightAt(pageColumn(1));
+        assertEquals(4, cache.misses());
+        // Page 1 came back in place of page 2, the least recently used one then
+        cache.heightAt(pageColumn(0));
+        assertEquals(4, cache.misses());
+        cache.heightAt(pageColumn(2));
+        assertEquals(5, cache.misses());
+        assertEquals(2, cache.pageCount());
+    }
+
+    @Test
+    void repeatedLookupsOfAPageAreHits() {
+        HeightmapCache cache = new HeightmapCache(SOURCE, PAGE_COLUMNS, TWO_PAGES);
+
+        for (int column = 0; column < PAGE_COLUMNS; column++) {
+            cache.heightAt(column);
+        }
+
+        assertEquals(1, cache.misses());
+        assertEquals(PAGE_COLUMNS - 1, cache.hits());
+    }
+
+    private static int pageColumn(int pageIndex) {
+        return pageIndex * PAGE_COLUMNS;
+    }
+}
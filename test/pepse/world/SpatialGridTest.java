@@ -0,0 +1,129 @@
+package pepse.world;
+
+import danogl.GameObject;
+import danogl.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of SpatialGrid, mostly of its open-addressing cell table: removing cells must keep the
+ * rest of their probe sequences reachable, and growing the table must keep every cell.
+ *
+ * @author Noam Barzilay
+ */
+class SpatialGridTest {
+    // Size of the cells of the tested grids
+    private static final float CELL_SIZE = 1;
+
+    @Test
+    void queryReportsAnObjectSpanningSeveralCellsOnce() {
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+        GameObject wide = new GameObject(new Vector2(0, 0), new Vector2(3, 2), null);
+        grid.insert(wide);
+
+        List<GameObject> found = new ArrayList<>();
+        grid.query(0, 0, 3, 2, found);
+
+        assertEquals(List.of(wide), found);
+        assertEquals(6, grid.cellCount());
+    }
+
+    @Test
+    void objectEndingOnACellBoundaryDoesNotSpillIntoTheNextCell() {
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+        grid.insert(new GameObject(new Vector2(0, 0), new Vector2(1, 1), null));
+
+        assertEquals(1, grid.cellCount());
+        assertTrue(objectsAt(grid, 1, 0).isEmpty());
+    }
+
+    @Test
+    void updateMovesAnObjectToItsNewCells() {
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+        GameObject moving = unitObject(0, 0);
+        grid.insert(moving);
+
+        moving.setTopLeftCorner(new Vector2(5, 7));
+        grid.update(moving);
+
+        assertTrue(objectsAt(grid, 0, 0).isEmpty());
+        assertEquals(List.of(moving), objectsAt(grid, 5, 7));
+        assertEquals(1, grid.cellCount());
+    }
+
+    @Test
+    void removingCellsKeepsTheOtherCellsReachable() {
+        // Enough cells to fill just under half of the initial table, so many of them share probe
+        // sequences, and every removal shifts back the cells probed past the emptied slot
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            GameObject gameObject = unitObject(i * 7 % 61, i * 13 % 97 + i / 61 * 97);
+            objects.add(gameObject);
+            grid.insert(gameObject);
+        }
+        Collections.shuffle(objects, new Random(1234));
+
+        List<GameObject> removed = objects.subList(0, objects.size() / 2);
+        List<GameObject> kept = objects.subList(objects.size() / 2, objects.size());
+        for (int i = 0; i < removed.size(); i++) {
+            grid.remove(removed.get(i));
+            assertEquals(objects.size() - i - 1, grid.cellCount());
+            for (GameObject gameObject : kept) {
+                assertEquals(List.of(gameObject), objectsAt(grid, gameObject));
+            }
+        }
+        for (GameObject gameObject : removed) {
+            assertTrue(objectsAt(grid, gameObject).isEmpty());
+        }
+    }
+
+    @Test
+    void growingKeepsEveryCell() {
+        // Enough cells to grow the initial table several times over
+        SpatialGrid grid = new SpatialGrid(CELL_SIZE);
+        List<GameObject> objects = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            GameObject gameObject = unitObject(i % 100 - 50, i / 100 - 15);
+            objects.add(gameObject);
+            grid.insert(gameObject);
+        }
+
+        assertEquals(objects.size(), grid.size());
+        assertEquals(objects.size(), grid.cellCount());
+        for (GameObject gameObject : objects) {
+            assertEquals(List.of(gameObject), objectsAt(grid, gameObject));
+        }
+
+        for (GameObject gameObject : objects) {
+            grid.remove(gameObject);
+        }
+        assertEquals(0, grid.size());
+        assertEquals(0, grid.cellCount());
+        List<GameObject> found = new ArrayList<>();
+        grid.query(-50, -15, 50, 15, found);
+        assertTrue(found.isEmpty());
+    }
+
+    private static GameObject unitObject(float x, float y) {
+        return new GameObject(new Vector2(x, y), Vector2.ONES, null);
+    }
+
+    private static List<GameObject> objectsAt(SpatialGrid grid, float x, float y) {
+        List<GameObject> found = new ArrayList<>();
+        grid.query(x, y, x, y, found);
+        return found;
+    }
+
+    private static List<GameObject> objectsAt(SpatialGrid grid, GameObject gameObject) {
+        Vector2 topLeft = gameObject.getTopLeftCorner();
+        return objectsAt(grid, topLeft.x(), topLeft.y());
+    }
+}
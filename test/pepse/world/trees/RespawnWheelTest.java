@@ -0,0 +1,120 @@
+package pepse.world.trees;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests of RespawnWheel, mostly of respawns that land in a slot more than one turn of the wheel
+ * away, which must wait for their remaining turns rather than fire the first time the slot comes
+ * up.
+ *
+ * @author Noam Barzilay
+ */
+class RespawnWheelTest {
+    // Number of slots of the tested wheels, the ticks of a full turn
+    private static final int SLOTS = 8;
+    // Duration of a tick of the tested wheels, in seconds
+    private static final float TICK = 1;
+
+    // Fruits respawned by the tested wheel, and the tick each of them respawned at
+    private final List<Fruit> respawned = new ArrayList<>();
+    private final List<Integer> respawnTicks = new ArrayList<>();
+    // Number of ticks the tested wheel advanced
+    private int ticks;
+    private final RespawnWheel wheel = new RespawnWheel(SLOTS, TICK, fruit -> {
+        respawned.add(fruit);
+        respawnTicks.add(ticks);
+    });
+
+    @Test
+    void fruitRespawnsAfterItsDelay() {
+        Fruit fruit = new Fruit(null, null);
+        wheel.schedule(fruit, 3 * TICK);
+
+        advance(2);
+        assertTrue(respawned.isEmpty());
+        assertTrue(wheel.isScheduled(fruit));
+        advance(1);
+
+        assertEquals(List.of(fruit), respawned);
+        assertFalse(wheel.isScheduled(fruit));
+        assertEquals(0, wheel.pendingCount());
+    }
+
+    @Test
+    void respawnBeyondOneTurnWaitsForItsRemainingTurns() {
+        Fruit fruit = new Fruit(null, null);
+        wheel.schedule(fruit, (2 * SLOTS + 4) * TICK);
+
+        advance(3 * SLOTS);
+
+        assertEquals(List.of(fruit), respawned);
+        assertEquals(List.of(2 * SLOTS + 4), respawnTicks);
+    }
+
+    @Test
+    void respawnOfAWholeNumberOfTurnsFiresOnItsLastTurn() {
+        Fruit fruit = new Fruit(null, null);
+        wheel.schedule(fruit, 2 * SLOTS * TICK);
+
+        advance(3 * SLOTS);
+
+        assertEquals(List.of(2 * SLOTS), respawnTicks);
+    }
+
+    @Test
+    void fruitsSharingASlotRespawnOnTheirOwnTurns() {
+        Fruit soon = new Fruit(null, null);
+        Fruit nextTurn = new Fruit(null, null);
+        Fruit twoTurnsLater = new Fruit(null, null);
+        wheel.schedule(twoTurnsLater, (2 * SLOTS + 5) * TICK);
+        wheel.schedule(soon, 5 * TICK);
+        wheel.schedule(nextTurn, (SLOTS + 5) * TICK);
+
+        advance(3 * SLOTS);
+
+        assertEquals(List.of(soon, nextTurn, twoTurnsLater), respawned);
+        assertEquals(List.of(5, SLOTS + 5, 2 * SLOTS + 5), respawnTicks);
+    }
+
+    @Test
+    void respawnScheduledMidTurnWrapsAroundTheWheel() {
+        Fruit fruit = new Fruit(null, null);
+        advance(SLOTS - 2);
+        wheel.schedule(fruit, (SLOTS + 3) * TICK);
+
+        advance(2 * SLOTS);
+
+        assertEquals(List.of(2 * SLOTS + 1), respawnTicks);
+    }
+
+    @Test
+    void cancelledFruitNeverRespawns() {
+        Fruit cancelled = new Fruit(null, null);
+        Fruit kept = new Fruit(null, null);
+        wheel.schedule(cancelled, (SLOTS + 2) * TICK);
+        wheel.schedule(kept, (SLOTS + 2) * TICK);
+
+        wheel.cancel(cancelled);
+        advance(2 * SLOTS);
+
+        assertEquals(List.of(kept), respawned);
+        assertFalse(wheel.isScheduled(cancelled));
+    }
+
+    /**
+     * Advances the tested wheel by the given number of ticks, one tick per update.
+     */
+    private void advance(int tickCount) {
+        for (int i = 0; i < tickCount; i++) {
+            ticks++;
+            wheel.update(TICK);
+        }
+    }
+}